@@ -22,6 +22,7 @@ import static org.opendatakit.briefcase.buildconfig.BuildConfig.VERSION;
 import static org.opendatakit.briefcase.model.BriefcasePreferences.BRIEFCASE_TRACKING_CONSENT_PROPERTY;
 import static org.opendatakit.briefcase.operations.ClearPreferences.CLEAR_PREFS;
 import static org.opendatakit.briefcase.operations.Export.EXPORT_FORM;
+import static org.opendatakit.briefcase.operations.Export.EXPORT_FORMS;
 import static org.opendatakit.briefcase.operations.ImportFromODK.IMPORT_FROM_ODK;
 import static org.opendatakit.briefcase.operations.PullFormFromAggregate.DEPRECATED_PULL_AGGREGATE;
 import static org.opendatakit.briefcase.operations.PullFormFromAggregate.PULL_FORM_FROM_AGGREGATE;
@@ -61,6 +62,7 @@ public class Launcher {
         .register(PUSH_FORM_TO_AGGREGATE)
         .register(IMPORT_FROM_ODK)
         .register(EXPORT_FORM)
+        .register(EXPORT_FORMS)
         .register(CLEAR_PREFS)
         .otherwise((cli, commandLine) -> {
           if (args.length == 0)
@@ -21,11 +21,7 @@ import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.security.PrivateKey;
-import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
-import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import org.apache.commons.codec.binary.Base64;
@@ -65,56 +61,36 @@ final class CipherFactory {
   }
 
   /**
-   * Factory that initializes a new {@link CipherFactory} for the given instance ID,
-   * encryption key and private key values.
+   * Factory that initializes a new {@link CipherFactory} for the given instance ID
+   * and encryption key values, using the given {@link DecryptionContext} to decrypt
+   * the key.
    *
    * @throws CryptoException if the key can't be decrypted
    */
-  static CipherFactory from(String instanceId, String base64EncryptedKey, PrivateKey privateKey) {
-    try {
-      Cipher pkCipher;
-      pkCipher = Cipher.getInstance("RSA/NONE/OAEPWithSHA256AndMGF1Padding");
-      pkCipher.init(Cipher.DECRYPT_MODE, privateKey);
-      byte[] encryptedSymmetricKey = Base64.decodeBase64(base64EncryptedKey);
-      byte[] decryptedKey = pkCipher.doFinal(encryptedSymmetricKey);
-      return new CipherFactory(instanceId, decryptedKey);
-    } catch (NoSuchPaddingException | NoSuchAlgorithmException | BadPaddingException | IllegalBlockSizeException | InvalidKeyException e) {
-      throw new CryptoException(e);
-    }
-  }
-
-  /**
-   * Factory that returns a {@link Cipher} suitable to decrypt cryptographic
-   * signatures.
-   *
-   * @throws CryptoException
-   */
-  static Cipher signatureDecrypter(PrivateKey privateKey) {
-    try {
-      Cipher pkCipher = Cipher.getInstance("RSA/NONE/OAEPWithSHA256AndMGF1Padding");
-      pkCipher.init(Cipher.DECRYPT_MODE, privateKey);
-      return pkCipher;
-    } catch (NoSuchPaddingException | NoSuchAlgorithmException | InvalidKeyException e) {
-      throw new CryptoException(e);
-    }
+  static CipherFactory from(String instanceId, String base64EncryptedKey, DecryptionContext decryptionContext) {
+    return new CipherFactory(instanceId, decryptionContext.decrypt(Base64.decodeBase64(base64EncryptedKey)));
   }
 
   /**
    * Return the next {@link Cipher} instance. This method has side-effects and will
    * change the initialization vector, which will affect the next call to this method.
+   * <p>
+   * The returned instance is reused by the calling thread, which means that it
+   * has to be done with it before calling this method again.
    *
    * @throws CryptoException
+   * @see DecryptionContext#aesCipher()
    */
   Cipher next() {
     try {
       ++ivSeedArray[ivCounter % ivSeedArray.length];
       ++ivCounter;
       IvParameterSpec baseIv = new IvParameterSpec(ivSeedArray);
-      Cipher c = Cipher.getInstance("AES/CFB/PKCS5Padding");
+      Cipher c = DecryptionContext.aesCipher();
 
       c.init(Cipher.DECRYPT_MODE, symmetricKey, baseIv);
       return c;
-    } catch (NoSuchAlgorithmException | InvalidKeyException | InvalidAlgorithmParameterException | NoSuchPaddingException e) {
+    } catch (InvalidKeyException | InvalidAlgorithmParameterException e) {
       throw new CryptoException(e);
     }
   }
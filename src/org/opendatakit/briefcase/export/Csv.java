@@ -5,9 +5,13 @@ import static java.nio.file.StandardOpenOption.CREATE;
 import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
 import static org.opendatakit.briefcase.export.CsvSubmissionMappers.getMainHeader;
 import static org.opendatakit.briefcase.export.CsvSubmissionMappers.getRepeatHeader;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.newBufferedWriter;
 import static org.opendatakit.briefcase.reused.UncheckedFiles.write;
 import static org.opendatakit.briefcase.util.StringUtils.stripIllegalChars;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.stream.Stream;
@@ -17,6 +21,10 @@ import org.opendatakit.briefcase.reused.UncheckedFiles;
 /**
  * This class represents a CSV export output file. It knows how to write
  * its header and contents.
+ * <p>
+ * Contents are written through a buffered writer that stays open between
+ * {@link Csv#prepareOutputFiles()} and {@link Csv#close()} calls, which lets
+ * callers write lines as soon as they are produced.
  */
 class Csv {
   private final String modelFqn;
@@ -25,6 +33,7 @@ class Csv {
   private final boolean sortedOutput;
   private final boolean overwrite;
   private final CsvSubmissionMapper mapper;
+  private BufferedWriter writer;
 
   private Csv(String modelFqn, String header, Path output, boolean sortedOutput, boolean overwrite, CsvSubmissionMapper mapper) {
     this.modelFqn = modelFqn;
@@ -38,7 +47,7 @@ class Csv {
   /**
    * Factory for the main CSV export file of a form.
    */
-  static Csv main(FormDefinition formDefinition, ExportConfiguration configuration) {
+  static Csv main(FormDefinition formDefinition, ExportConfiguration configuration, MediaStore mediaStore) {
     Path output = configuration.getExportDir()
         .orElseThrow(BriefcaseException::new)
         .resolve(configuration.getExportFileName().orElse(stripIllegalChars(formDefinition.getFormName()) + ".csv"));
@@ -48,14 +57,14 @@ class Csv {
         output,
         true,
         configuration.getOverwriteExistingFiles().orElse(false),
-        CsvSubmissionMappers.main(formDefinition, configuration)
+        CsvSubmissionMappers.main(formDefinition, configuration, mediaStore)
     );
   }
 
   /**
    * Factory of any repeat CSV export file.
    */
-  static Csv repeat(FormDefinition formDefinition, Model groupModel, ExportConfiguration configuration) {
+  static Csv repeat(FormDefinition formDefinition, Model groupModel, ExportConfiguration configuration, MediaStore mediaStore) {
     String repeatFileNameBase = configuration.getExportFileName()
         .map(UncheckedFiles::stripFileExtension)
         .orElse(stripIllegalChars(formDefinition.getFormName()));
@@ -68,17 +77,19 @@ class Csv {
         output,
         false,
         configuration.getOverwriteExistingFiles().orElse(false),
-        CsvSubmissionMappers.repeat(groupModel, configuration)
+        CsvSubmissionMappers.repeat(groupModel, configuration, mediaStore)
     );
   }
 
   /**
    * This method ensures that the output file is ready to receive new
-   * contents by appending lines.
+   * contents by appending lines, and opens the writer that will be used
+   * to append them.
    */
   void prepareOutputFiles() {
     if (!Files.exists(output) || overwrite)
       write(output, Stream.of(header), CREATE, TRUNCATE_EXISTING);
+    writer = newBufferedWriter(output, APPEND);
   }
 
   CsvSubmissionMapper getMapper() {
@@ -89,10 +100,46 @@ class Csv {
     return modelFqn;
   }
 
+  Path getOutput() {
+    return output;
+  }
+
+  boolean exists() {
+    return Files.exists(output);
+  }
+
   /**
    * This method appends the given lines into the file this instance represents.
+   * <p>
+   * The output file must have been prepared with {@link Csv#prepareOutputFiles()} first.
    */
   void appendLines(CsvLines csvLines) {
-    write(output, sortedOutput ? csvLines.sorted() : csvLines.unsorted(), APPEND);
+    if (writer == null)
+      throw new BriefcaseException("The output file " + output + " is not ready to receive lines");
+    (sortedOutput ? csvLines.sorted() : csvLines.unsorted()).forEach(this::writeLine);
+  }
+
+  /**
+   * Flushes and closes the writer of the file this instance represents.
+   */
+  void close() {
+    if (writer == null)
+      return;
+    try {
+      writer.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      writer = null;
+    }
+  }
+
+  private void writeLine(String line) {
+    try {
+      writer.write(line);
+      writer.newLine();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
   }
 }
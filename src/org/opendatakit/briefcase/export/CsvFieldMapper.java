@@ -24,15 +24,15 @@ import org.opendatakit.briefcase.reused.Pair;
  * This Functional Interface represents the operation of transformation of a
  * submission field's value to a stream of CSV key-value pairs.
  * <p>
- * The {@link CsvFieldMapper#apply(String, Path, Model, Optional, Path, boolean)} returns
+ * The {@link CsvFieldMapper#apply(String, Path, Model, Optional, MediaStore, boolean)} returns
  * a list of column name and value pairs because we need to support a weird empty/null
  * value encoding scheme described <a href="https://github.com/opendatakit/briefcase/blob/master/docs/export-format.md#non-empty-value-codification">in the docs</a>.
  * <p>
- * Normally, the {@link CsvFieldMapper#apply(String, Path, Model, Optional, Path, boolean)} should return just a
+ * Normally, the {@link CsvFieldMapper#apply(String, Path, Model, Optional, MediaStore, boolean)} should return just a
  * {@link Stream} of {@link String} values.
  */
 @FunctionalInterface
 interface CsvFieldMapper {
   // TODO Normalize the weird empty/null value encoding scheme and simplify this method to return a Stream<String> of just csv column values
-  Stream<Pair<String, String>> apply(String localId, Path workingDir, Model model, Optional<XmlElement> maybeElement, Path exportMediaPath, boolean exportMedia);
+  Stream<Pair<String, String>> apply(String localId, Path workingDir, Model model, Optional<XmlElement> maybeElement, MediaStore mediaStore, boolean exportMedia);
 }
@@ -15,37 +15,27 @@
  */
 package org.opendatakit.briefcase.export;
 
-import static java.text.DateFormat.getDateInstance;
-import static java.text.DateFormat.getDateTimeInstance;
-import static java.text.DateFormat.getTimeInstance;
 import static org.javarosa.core.model.DataType.BINARY;
 import static org.javarosa.core.model.DataType.DATE;
 import static org.javarosa.core.model.DataType.DATE_TIME;
 import static org.javarosa.core.model.DataType.GEOPOINT;
 import static org.javarosa.core.model.DataType.NULL;
 import static org.javarosa.core.model.DataType.TIME;
-import static org.opendatakit.briefcase.reused.UncheckedFiles.copy;
 import static org.opendatakit.briefcase.reused.UncheckedFiles.createDirectories;
 import static org.opendatakit.briefcase.reused.UncheckedFiles.exists;
-import static org.opendatakit.briefcase.reused.UncheckedFiles.getFileExtension;
-import static org.opendatakit.briefcase.reused.UncheckedFiles.getMd5Hash;
-import static org.opendatakit.briefcase.reused.UncheckedFiles.stripFileExtension;
-import static org.opendatakit.common.utils.WebUtils.parseDate;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.DateFormat;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.javarosa.core.model.DataType;
-import org.opendatakit.briefcase.reused.OptionalProduct;
 import org.opendatakit.briefcase.reused.Pair;
 
 /**
@@ -54,7 +44,8 @@ import org.opendatakit.briefcase.reused.Pair;
  */
 @SuppressWarnings("checkstyle:ParameterName")
 final class CsvFieldMappers {
-  private static final Map<DataType, CsvFieldMapper> mappers = new HashMap<>();
+  private static final Map<DataType, CsvFieldMapper> mappers = new EnumMap<>(DataType.class);
+  private static final CsvFieldMapper TEXT_MAPPER = simpleMapper(CsvFieldMappers::text);
 
   // Register all non-text supported mappers
   static {
@@ -67,13 +58,13 @@ final class CsvFieldMappers {
     mappers.put(GEOPOINT, simpleMapper(CsvFieldMappers::geopoint, 4));
 
     // Binary fields require knowledge of the export configuration and working dir
-    mappers.put(BINARY, (__, workingDir, field, element, exportMediaPath, exportMedia) -> element
-        .map(e -> binary(e, exportMedia, workingDir, exportMediaPath))
+    mappers.put(BINARY, (__, workingDir, field, element, mediaStore, exportMedia) -> element
+        .map(e -> binary(e, exportMedia, workingDir, mediaStore))
         .orElse(empty(field.fqn())));
 
     // Null fields encode groups (repeating and non-repeating), therefore,
     // they require the full context
-    mappers.put(NULL, (localId, workingDir, model, element, exportMediaPath, exportMedia) -> {
+    mappers.put(NULL, (localId, workingDir, model, element, mediaStore, exportMedia) -> {
       if (model.isRepeatable())
         return element.map(e -> repeatableGroup(localId, model, e))
             .orElse(empty("SET-OF-" + model.getParent().fqn(), 1));
@@ -81,14 +72,13 @@ final class CsvFieldMappers {
       if (model.isEmpty() && !model.isRoot())
         return element.map(CsvFieldMappers::text).orElse(empty(model.fqn()));
 
-      return nonRepeatableGroup(localId, workingDir, model, element, exportMedia, exportMediaPath);
+      return nonRepeatableGroup(localId, workingDir, model, element, exportMedia, mediaStore);
     });
   }
 
   static CsvFieldMapper getMapper(Model field) {
-    return Optional.ofNullable(mappers.get(field.getDataType()))
-        // If no mapper has been defined, we'll just output the text
-        .orElse(simpleMapper(CsvFieldMappers::text));
+    // If no mapper has been defined, we'll just output the text
+    return mappers.getOrDefault(field.getDataType(), TEXT_MAPPER);
   }
 
   /**
@@ -112,6 +102,8 @@ final class CsvFieldMappers {
    * @return a {@link List} of {@link Pair} instances to represent that some CSV values will be empty.
    */
   private static Stream<Pair<String, String>> empty(String fqn, int outputSize) {
+    if (outputSize == 1)
+      return Stream.of(Pair.of(fqn, null));
     return IntStream.range(0, outputSize).boxed().map(__ -> Pair.of(fqn, null));
   }
 
@@ -120,7 +112,7 @@ final class CsvFieldMappers {
   }
 
   private static CsvFieldMapper simpleMapper(Function<XmlElement, Stream<Pair<String, String>>> mapper, int outputSize) {
-    return (localId, workingDir, model, element, exportMediaPath, exportMedia) -> element
+    return (localId, workingDir, model, element, mediaStore, exportMedia) -> element
         .map(mapper)
         .orElse(empty(model.fqn(), outputSize));
   }
@@ -133,20 +125,20 @@ final class CsvFieldMappers {
   }
 
   private static Stream<Pair<String, String>> date(XmlElement element) {
-    return formattedDate(element, getDateInstance());
+    return formattedDate(element, LocalizedDates::formatDate);
   }
 
   private static Stream<Pair<String, String>> time(XmlElement element) {
-    return formattedDate(element, getTimeInstance());
+    return formattedDate(element, LocalizedDates::formatTime);
   }
 
   private static Stream<Pair<String, String>> dateTime(XmlElement element) {
-    return formattedDate(element, getDateTimeInstance());
+    return formattedDate(element, LocalizedDates::formatDateTime);
   }
 
-  private static Stream<Pair<String, String>> formattedDate(XmlElement element, DateFormat formatter) {
+  private static Stream<Pair<String, String>> formattedDate(XmlElement element, BiFunction<LocalizedDates, String, String> formatter) {
     return Stream.of(element.maybeValue()
-        .map(value -> Pair.of(element.fqn(), formatter.format(parseDate(value))))
+        .map(value -> Pair.of(element.fqn(), formatter.apply(LocalizedDates.current(), value)))
         .orElse(Pair.of(element.fqn(), "")));
   }
 
@@ -159,9 +151,7 @@ final class CsvFieldMappers {
         .mapToObj(i -> Pair.of(element.fqn() + "-" + tags[i], i < fields.length ? fields[i] : null));
   }
 
-  private static Stream<Pair<String, String>> binary(XmlElement element, boolean exportMedia, Path workingDir, Path exportMediaPath) {
-    // TODO We should separate the side effect of writing files to disk from the csv output generation
-
+  private static Stream<Pair<String, String>> binary(XmlElement element, boolean exportMedia, Path workingDir, MediaStore mediaStore) {
     if (!element.hasValue())
       return empty(element.fqn());
 
@@ -170,8 +160,8 @@ final class CsvFieldMappers {
     if (!exportMedia)
       return Stream.of(Pair.of(element.fqn(), sourceFilename));
 
-    if (!Files.exists(exportMediaPath))
-      createDirectories(exportMediaPath);
+    if (!Files.exists(mediaStore.getMediaDir()))
+      createDirectories(mediaStore.getMediaDir());
 
     Path sourceFile = workingDir.resolve(sourceFilename);
 
@@ -179,37 +169,12 @@ final class CsvFieldMappers {
     if (!exists(sourceFile))
       return Stream.of(Pair.of(element.fqn(), Paths.get("media").resolve(sourceFilename).toString()));
 
-    // When the destination file doesn't exist, we copy the source file
-    // there and return its path relative to the instance folder
-    Path destinationFile = exportMediaPath.resolve(sourceFilename);
-    if (!exists(destinationFile)) {
-      copy(sourceFile, destinationFile);
-      return Stream.of(Pair.of(element.fqn(), Paths.get("media").resolve(destinationFile.getFileName()).toString()));
-    }
-
-    // When the destination file has the same hash as the source file,
-    // we don't do any side-effect and return its path relative to the
+    // The media store knows if the source file has already been exported, and
+    // which name it should get otherwise, to avoid overwriting other files. It
+    // copies the file in the background and we return its path relative to the
     // instance folder
-    Boolean sameHash = OptionalProduct.all(getMd5Hash(sourceFile), getMd5Hash(destinationFile)).map(Objects::equals).orElse(false);
-    if (sameHash)
-      return Stream.of(Pair.of(element.fqn(), Paths.get("media").resolve(destinationFile.getFileName()).toString()));
-
-    // When the hashes are different, we compute the next sequential suffix for
-    // the a new destination file to avoid overwriting the one we found already
-    // there. We try every number in the sequence until we find one that won't
-    // produce a destination file that exists in the output directory.
-    String namePart = stripFileExtension(sourceFilename);
-    String extPart = getFileExtension(sourceFilename).map(extension -> "." + extension).orElse("");
-    int sequenceSuffix = 2;
-    Path sequentialDestinationFile;
-    do {
-      sequentialDestinationFile = exportMediaPath.resolve(String.format("%s-%d%s", namePart, sequenceSuffix++, extPart));
-    } while (exists(sequentialDestinationFile));
-
-    // Now that we have a valid destination file, we copy the source file
-    // there and return its path relative to the instance folder
-    copy(sourceFile, sequentialDestinationFile);
-    return Stream.of(Pair.of(element.fqn(), Paths.get("media").resolve(sequentialDestinationFile.getFileName()).toString()));
+    String exportedFilename = mediaStore.put(sourceFile, sourceFilename);
+    return Stream.of(Pair.of(element.fqn(), Paths.get("media").resolve(exportedFilename).toString()));
   }
 
   private static Stream<Pair<String, String>> repeatableGroup(String localId, Model current, XmlElement element) {
@@ -219,13 +184,13 @@ final class CsvFieldMappers {
         : Stream.of(Pair.of(current.fqn(), localId + "/" + current.fqn(shift)));
   }
 
-  private static Stream<Pair<String, String>> nonRepeatableGroup(String localId, Path workingDir, Model current, Optional<XmlElement> maybeElement, boolean exportMedia, Path exportMediaPath) {
+  private static Stream<Pair<String, String>> nonRepeatableGroup(String localId, Path workingDir, Model current, Optional<XmlElement> maybeElement, boolean exportMedia, MediaStore mediaStore) {
     return current.flatMap(field -> getMapper(field).apply(
         localId,
         workingDir,
         field,
         maybeElement.flatMap(element -> element.findElement(field.getName())),
-        exportMediaPath, exportMedia
+        mediaStore, exportMedia
     ));
   }
 
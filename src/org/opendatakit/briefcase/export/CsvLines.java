@@ -1,21 +1,18 @@
 package org.opendatakit.briefcase.export;
 
 import java.time.OffsetDateTime;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import org.opendatakit.briefcase.reused.BriefcaseException;
 
 /**
  * This class represents a group of {@link CsvLine} belonging to the same
  * {@link Csv} output file. The link between these being a shared {@link CsvLines#modelFqn}.
  * <p>
- * Members of this class can be merged to produced a new object that will
- * have the combined output lines.
+ * Members of this class can be collected with a {@link CsvLinesSink} to group
+ * the output lines of many submissions.
  * <p>
  * Lines held by an instance of this class can be retrieved ordered by submission
  * date or by insertion order.
@@ -29,13 +26,6 @@ class CsvLines {
     this.lines = lines;
   }
 
-  /**
-   * Factory of an empty instance to be used when reducing a stream of instances.
-   */
-  static CsvLines empty() {
-    return new CsvLines(null, new ArrayList<>());
-  }
-
   public static CsvLines of(String modelFqn, OffsetDateTime submissionDate, String line) {
     return new CsvLines(modelFqn, Collections.singletonList(new CsvLine(submissionDate, line)));
   }
@@ -44,34 +34,15 @@ class CsvLines {
     return new CsvLines(modelFqn, lines.stream().map(line -> new CsvLine(submissionDate, line)).collect(Collectors.toList()));
   }
 
-  /**
-   * Returns a new instance with the combined list of lines taken from both arguments.
-   * <p>
-   * The {@link CsvLines#modelFqn} of both arguments must match or be
-   * null and at least one of them must be non-null.
-   */
-  static CsvLines merge(CsvLines left, CsvLines right) {
-    // One of them must have a non-null modelFqn
-    if (left.modelFqn == null && right.modelFqn == null)
-      throw new BriefcaseException("At least one CsvLines arg has to have a non-null FQDN");
-    // modelFqns must match or be null
-    if (left.modelFqn != null && right.modelFqn != null && !left.modelFqn.equals(right.modelFqn))
-      throw new BriefcaseException("FQDN don't match");
-    List<CsvLine> lines = new ArrayList<>();
-    lines.addAll(left.lines);
-    lines.addAll(right.lines);
-    return new CsvLines(coalesce(left.modelFqn, right.modelFqn), lines);
+  String getModelFqn() {
+    return modelFqn;
   }
 
   /**
-   * Utiliy method to get the first non-null value from a list
+   * Return the unmodifiable list of lines this instance holds
    */
-  private static String coalesce(String... values) {
-    return Stream.of(values).filter(Objects::nonNull).findFirst().orElseThrow(BriefcaseException::new);
-  }
-
-  String getModelFqn() {
-    return modelFqn;
+  List<CsvLine> getLines() {
+    return Collections.unmodifiableList(lines);
   }
 
   /**
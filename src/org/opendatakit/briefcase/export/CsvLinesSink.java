@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class collects the {@link CsvLines} produced by {@link CsvSubmissionMapper}
+ * instances while submissions are being mapped in parallel, grouping them by the
+ * FQN of the model they belong to.
+ * <p>
+ * Each model gets a set of append-only stripes. Threads append to the stripe
+ * that corresponds to them, which keeps lock contention low, and lines are never
+ * copied again until they are drained.
+ */
+class CsvLinesSink {
+  private static final int DEFAULT_STRIPES = Runtime.getRuntime().availableProcessors();
+  private final ConcurrentMap<String, Stripes> stripesPerModel = new ConcurrentHashMap<>();
+  private final int stripes;
+
+  CsvLinesSink() {
+    this(DEFAULT_STRIPES);
+  }
+
+  CsvLinesSink(int stripes) {
+    if (stripes < 1)
+      throw new IllegalArgumentException("A sink needs at least one stripe");
+    this.stripes = stripes;
+  }
+
+  /**
+   * Appends the lines of the given {@link CsvLines} to the stripes of the model they belong to.
+   * <p>
+   * This method is safe to be called concurrently.
+   */
+  void accept(CsvLines csvLines) {
+    stripesPerModel
+        .computeIfAbsent(csvLines.getModelFqn(), __ -> new Stripes(stripes))
+        .append(csvLines.getLines());
+  }
+
+  /**
+   * Removes and returns all the lines appended so far for the given model FQN.
+   * <p>
+   * This method should be called once all the threads appending lines are done.
+   * Lines from different stripes are returned in no particular order.
+   */
+  CsvLines drain(String modelFqn) {
+    Stripes modelStripes = stripesPerModel.remove(modelFqn);
+    return new CsvLines(modelFqn, modelStripes == null ? new ArrayList<>() : modelStripes.drain());
+  }
+
+  private static class Stripes {
+    private final List<List<CsvLine>> stripes;
+
+    Stripes(int size) {
+      stripes = new ArrayList<>(size);
+      for (int i = 0; i < size; i++)
+        stripes.add(new ArrayList<>());
+    }
+
+    void append(List<CsvLine> lines) {
+      List<CsvLine> stripe = stripes.get((int) (Thread.currentThread().getId() % stripes.size()));
+      synchronized (stripe) {
+        stripe.addAll(lines);
+      }
+    }
+
+    List<CsvLine> drain() {
+      int size = 0;
+      for (List<CsvLine> stripe : stripes)
+        synchronized (stripe) {
+          size += stripe.size();
+        }
+      List<CsvLine> lines = new ArrayList<>(size);
+      for (List<CsvLine> stripe : stripes)
+        synchronized (stripe) {
+          lines.addAll(stripe);
+          stripe.clear();
+        }
+      return lines;
+    }
+  }
+}
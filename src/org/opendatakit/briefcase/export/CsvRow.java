@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+/**
+ * This class builds CSV lines by encoding their values straight into a
+ * {@link StringBuilder} that each thread reuses for all the lines it builds.
+ * <p>
+ * Each value is scanned only once, and the only object that gets created per
+ * line is the {@link String} returned by {@link CsvRow#build()}.
+ */
+final class CsvRow {
+  private static final ThreadLocal<CsvRow> ROWS = ThreadLocal.withInitial(CsvRow::new);
+  private static final int INITIAL_CAPACITY = 1024;
+  // Builders that have grown bigger than this are not kept between lines
+  private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+  private StringBuilder sb = new StringBuilder(INITIAL_CAPACITY);
+  private boolean empty = true;
+
+  private CsvRow() {
+  }
+
+  /**
+   * Returns the empty row of the current thread.
+   * <p>
+   * Only one line can be built at a time in each thread. Any previous line
+   * that hasn't been built yet is discarded.
+   */
+  static CsvRow start() {
+    CsvRow row = ROWS.get();
+    if (row.sb.capacity() > MAX_RETAINED_CAPACITY)
+      row.sb = new StringBuilder(INITIAL_CAPACITY);
+    else
+      row.sb.setLength(0);
+    row.empty = true;
+    return row;
+  }
+
+  /**
+   * Appends a value to this row, enclosing it between double quotes if it contains
+   * line breaks, double quotes, or commas, and escaping any double quote in it.
+   * <p>
+   * Null and empty values are encoded as an empty value, if nulls are allowed,
+   * or as an empty string between double quotes, otherwise.
+   */
+  CsvRow append(String value, boolean allowNulls) {
+    separate();
+    if (value == null || value.isEmpty()) {
+      if (!allowNulls)
+        sb.append("\"\"");
+      return this;
+    }
+    int length = value.length();
+    int i = 0;
+    while (i < length && !needsQuotes(value.charAt(i)))
+      i++;
+    if (i == length) {
+      sb.append(value);
+      return this;
+    }
+    sb.append('"').append(value, 0, i);
+    for (; i < length; i++) {
+      char c = value.charAt(i);
+      if (c == '"')
+        sb.append('"');
+      sb.append(c);
+    }
+    sb.append('"');
+    return this;
+  }
+
+  /**
+   * Appends a value to this row without encoding it.
+   */
+  CsvRow appendRaw(String value) {
+    separate();
+    sb.append(value);
+    return this;
+  }
+
+  /**
+   * Returns the line that has been built.
+   */
+  String build() {
+    return sb.toString();
+  }
+
+  private void separate() {
+    if (!empty)
+      sb.append(',');
+    empty = false;
+  }
+
+  private static boolean needsQuotes(char c) {
+    return c == '\n' || c == '"' || c == ',';
+  }
+}
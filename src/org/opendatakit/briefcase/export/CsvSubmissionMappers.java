@@ -16,8 +16,6 @@
 
 package org.opendatakit.briefcase.export;
 
-import static java.text.DateFormat.getDateTimeInstance;
-import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static org.javarosa.core.model.DataType.DATE;
@@ -31,7 +29,6 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.javarosa.core.model.DataType;
 import org.opendatakit.briefcase.reused.Pair;
@@ -48,26 +45,34 @@ final class CsvSubmissionMappers {
   /**
    * Factory that will produce {@link CsvLines} corresponding to the main output file
    * of a form.
+   * <p>
+   * The columns of the form are compiled once, when this method is called, and then
+   * reused to map each submission.
    */
-  static CsvSubmissionMapper main(FormDefinition formDefinition, ExportConfiguration configuration) {
+  static CsvSubmissionMapper main(FormDefinition formDefinition, ExportConfiguration configuration, MediaStore mediaStore) {
+    String fqn = formDefinition.getModel().fqn();
+    List<Column> columns = compileColumns(formDefinition.getModel());
+    boolean exportMedia = configuration.getExportMedia().orElse(true);
+    boolean isEncrypted = formDefinition.isFileEncryptedForm();
     return submission -> {
-      List<String> cols = new ArrayList<>();
-      cols.add(encode(submission.getSubmissionDate().map(CsvSubmissionMappers::format).orElse(null), false));
-      cols.addAll(formDefinition.getModel().flatMap(field -> getMapper(field).apply(
-          submission.getInstanceId(),
-          submission.getWorkingDir(),
-          field,
-          submission.findElement(field.getName()),
-          configuration.getExportMediaPath(),
-          configuration.getExportMedia().orElse(true)
-      ).map(value -> encodeMainValue(field, value))).collect(Collectors.toList()));
-      cols.add(submission.getInstanceId());
-      if (formDefinition.isFileEncryptedForm())
-        cols.add(submission.getValidationStatus().asCsvValue());
+      CsvRow row = CsvRow.start();
+      row.append(submission.getSubmissionDate().map(CsvSubmissionMappers::format).orElse(null), false);
+      for (Column column : columns)
+        column.mapper.apply(
+            submission.getInstanceId(),
+            submission.getWorkingDir(),
+            column.field,
+            submission.findElement(column.name),
+            mediaStore,
+            exportMedia
+        ).forEach(value -> appendMainValue(row, column, value));
+      row.appendRaw(submission.getInstanceId());
+      if (isEncrypted)
+        row.appendRaw(submission.getValidationStatus().asCsvValue());
       return CsvLines.of(
-          formDefinition.getModel().fqn(),
+          fqn,
           submission.getSubmissionDate().orElse(MIN_SUBMISSION_DATE),
-          cols.stream().collect(joining(","))
+          row.build()
       );
     };
   }
@@ -75,25 +80,33 @@ final class CsvSubmissionMappers {
   /**
    * Factory that will produce {@link CsvLines} corresponding to any repeat output file
    * of a form.
+   * <p>
+   * The columns of the group are compiled once, when this method is called, and then
+   * reused to map each submission.
    */
-  static CsvSubmissionMapper repeat(Model groupModel, ExportConfiguration configuration) {
+  static CsvSubmissionMapper repeat(Model groupModel, ExportConfiguration configuration, MediaStore mediaStore) {
+    String fqn = groupModel.fqn();
+    List<Column> columns = compileColumns(groupModel);
+    boolean exportMedia = configuration.getExportMedia().orElse(true);
     return submission -> CsvLines.of(
-        groupModel.fqn(),
+        fqn,
         submission.getSubmissionDate().orElse(MIN_SUBMISSION_DATE),
-        submission.getElements(groupModel.fqn()).stream().map(element -> {
-          List<String> cols = new ArrayList<>();
-          cols.addAll(groupModel.flatMap(field -> getMapper(field).apply(
-              element.getCurrentLocalId(submission.getInstanceId()),
-              submission.getWorkingDir(),
-              field,
-              element.findElement(field.getName()),
-              configuration.getExportMediaPath(),
-              configuration.getExportMedia().orElse(true)
-          ).map(CsvSubmissionMappers::encodeRepeatValue)).collect(toList()));
-          cols.add(encode(element.getParentLocalId(submission.getInstanceId()), false));
-          cols.add(encode(element.getCurrentLocalId(submission.getInstanceId()), false));
-          cols.add(encode(element.getGroupLocalId(submission.getInstanceId()), false));
-          return cols.stream().collect(joining(","));
+        submission.getElements(fqn).stream().map(element -> {
+          String currentLocalId = element.getCurrentLocalId(submission.getInstanceId());
+          CsvRow row = CsvRow.start();
+          for (Column column : columns)
+            column.mapper.apply(
+                currentLocalId,
+                submission.getWorkingDir(),
+                column.field,
+                element.findElement(column.name),
+                mediaStore,
+                exportMedia
+            ).forEach(value -> appendRepeatValue(row, value));
+          row.append(element.getParentLocalId(submission.getInstanceId()), false);
+          row.append(currentLocalId, false);
+          row.append(element.getGroupLocalId(submission.getInstanceId()), false);
+          return row.build();
         }).collect(toList())
     );
   }
@@ -131,29 +144,45 @@ final class CsvSubmissionMappers {
     return sb.toString().substring(1);
   }
 
-  private static String encode(String string, boolean allowNulls) {
-    if (string == null || string.isEmpty())
-      return allowNulls ? "" : "\"\"";
-    if (string.contains("\n") || string.contains("\"") || string.contains(","))
-      return String.format("\"%s\"", string.replaceAll("\"", "\"\""));
-    return string;
-  }
-
   private static String format(OffsetDateTime offsetDateTime) {
-    return getDateTimeInstance().format(new Date(offsetDateTime.toInstant().toEpochMilli()));
+    return LocalizedDates.current().formatDateTime(new Date(offsetDateTime.toInstant().toEpochMilli()));
   }
 
-  private static String encodeMainValue(Model field, Pair<String, String> value) {
-    return encode(
+  private static void appendMainValue(CsvRow row, Column column, Pair<String, String> value) {
+    row.append(
         value.getRight(),
-        EMPTY_COL_WHEN_NULL_DATATYPES.contains(field.getDataType()) || value.getLeft().startsWith("meta")
+        column.emptyWhenNull || value.getLeft().startsWith("meta")
     );
   }
 
-  private static String encodeRepeatValue(Pair<String, String> pair) {
-    return encode(
+  private static void appendRepeatValue(CsvRow row, Pair<String, String> pair) {
+    row.append(
         pair.getRight(),
         pair.getLeft().startsWith("meta") || pair.getLeft().startsWith("SET-OF")
     );
   }
+
+  private static List<Column> compileColumns(Model model) {
+    List<Column> columns = new ArrayList<>();
+    model.forEach(field -> columns.add(new Column(field)));
+    return columns;
+  }
+
+  /**
+   * This class holds everything that can be resolved from a field's {@link Model}
+   * before mapping any submission.
+   */
+  private static final class Column {
+    private final Model field;
+    private final String name;
+    private final CsvFieldMapper mapper;
+    private final boolean emptyWhenNull;
+
+    private Column(Model field) {
+      this.field = field;
+      this.name = field.getName();
+      this.mapper = getMapper(field);
+      this.emptyWhenNull = EMPTY_COL_WHEN_NULL_DATATYPES.contains(field.getDataType());
+    }
+  }
 }
@@ -64,4 +64,13 @@ class DateRange {
     return start.map(startDate -> !startDate.isAfter(targetDate)).orElse(true)
         && end.map(endDate -> !endDate.isBefore(targetDate)).orElse(true);
   }
+
+  /**
+   * Returns the ISO representation of this date range's start and end,
+   * separated by a slash, leaving out the missing ones.
+   */
+  @Override
+  public String toString() {
+    return start.map(LocalDate::toString).orElse("") + "/" + end.map(LocalDate::toString).orElse("");
+  }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.util.Optional;
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.NoSuchPaddingException;
+import org.opendatakit.briefcase.model.CryptoException;
+
+/**
+ * This class holds what's needed to decrypt the submissions of an export: the
+ * {@link PrivateKey}, which is read only once from its PEM file, and the
+ * {@link Cipher} instances that use it.
+ * <p>
+ * Looking up a {@link Cipher} instance in the security providers costs more than
+ * decrypting the key of a submission, so each thread keeps its own instances and
+ * reuses them for all the submissions it decrypts.
+ */
+final class DecryptionContext {
+  private static final String RSA_TRANSFORMATION = "RSA/NONE/OAEPWithSHA256AndMGF1Padding";
+  private static final String AES_TRANSFORMATION = "AES/CFB/PKCS5Padding";
+  private static final ThreadLocal<Cipher> AES_CIPHERS = ThreadLocal.withInitial(() -> getInstance(AES_TRANSFORMATION));
+  private final PrivateKey privateKey;
+  private final ThreadLocal<Cipher> rsaCiphers;
+
+  DecryptionContext(PrivateKey privateKey) {
+    this.privateKey = privateKey;
+    this.rsaCiphers = ThreadLocal.withInitial(this::initRsaCipher);
+  }
+
+  /**
+   * Factory that reads the private key of the given {@link ExportConfiguration}.
+   *
+   * @return a new {@link DecryptionContext} instance, wrapped inside an {@link Optional}
+   *     if the configuration has a readable PEM file, or {@link Optional#empty()} otherwise
+   */
+  static Optional<DecryptionContext> from(ExportConfiguration configuration) {
+    return configuration.getPrivateKey().map(DecryptionContext::new);
+  }
+
+  /**
+   * Decrypts a message, like a symmetric key or a signature, that was encrypted
+   * with the public key that pairs with this context's private key.
+   *
+   * @throws CryptoException if the message can't be decrypted
+   */
+  byte[] decrypt(byte[] message) {
+    try {
+      return rsaCiphers.get().doFinal(message);
+    } catch (BadPaddingException | IllegalBlockSizeException e) {
+      // Don't trust the state of a cipher that has failed
+      rsaCiphers.remove();
+      throw new CryptoException("Can't decrypt message", e);
+    }
+  }
+
+  /**
+   * Returns this thread's AES {@link Cipher} instance. Callers must initialize it
+   * before using it, and they must be done with it before getting it again.
+   */
+  static Cipher aesCipher() {
+    return AES_CIPHERS.get();
+  }
+
+  private Cipher initRsaCipher() {
+    Cipher cipher = getInstance(RSA_TRANSFORMATION);
+    try {
+      cipher.init(Cipher.DECRYPT_MODE, privateKey);
+      return cipher;
+    } catch (InvalidKeyException e) {
+      throw new CryptoException(e);
+    }
+  }
+
+  private static Cipher getInstance(String transformation) {
+    try {
+      return Cipher.getInstance(transformation);
+    } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+      throw new CryptoException(e);
+    }
+  }
+}
@@ -59,6 +59,7 @@ public class ExportConfiguration {
   private static final String PULL_BEFORE_OVERRIDE = "pullBeforeOverride";
   private static final String OVERWRITE_EXISTING_FILES = "overwriteExistingFiles";
   private static final String EXPORT_MEDIA = "exportMedia";
+  private static final String INCREMENTAL_EXPORT = "incrementalExport";
   private static final Predicate<PullBeforeOverrideOption> ALL_EXCEPT_INHERIT = value -> value != INHERIT;
   private Optional<String> exportFileName;
   private Optional<Path> exportDir;
@@ -69,8 +70,11 @@ public class ExportConfiguration {
   private Optional<PullBeforeOverrideOption> pullBeforeOverride;
   private Optional<Boolean> overwriteExistingFiles;
   private Optional<Boolean> exportMedia;
+  private Optional<Boolean> incrementalExport;
+  private Optional<Integer> maxBufferedSubmissions = Optional.empty();
+  private Optional<Path> scratchDir = Optional.empty();
 
-  public ExportConfiguration(Optional<String> exportFileName, Optional<Path> exportDir, Optional<Path> pemFile, Optional<LocalDate> startDate, Optional<LocalDate> endDate, Optional<Boolean> pullBefore, Optional<PullBeforeOverrideOption> pullBeforeOverride, Optional<Boolean> overwriteExistingFiles, Optional<Boolean> exportMedia) {
+  public ExportConfiguration(Optional<String> exportFileName, Optional<Path> exportDir, Optional<Path> pemFile, Optional<LocalDate> startDate, Optional<LocalDate> endDate, Optional<Boolean> pullBefore, Optional<PullBeforeOverrideOption> pullBeforeOverride, Optional<Boolean> overwriteExistingFiles, Optional<Boolean> exportMedia, Optional<Boolean> incrementalExport) {
     this.exportFileName = exportFileName;
     this.exportDir = exportDir;
     this.pemFile = pemFile;
@@ -80,10 +84,11 @@ public class ExportConfiguration {
     this.pullBeforeOverride = pullBeforeOverride;
     this.overwriteExistingFiles = overwriteExistingFiles;
     this.exportMedia = exportMedia;
+    this.incrementalExport = incrementalExport;
   }
 
   public static ExportConfiguration empty() {
-    return new ExportConfiguration(Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty());
+    return new ExportConfiguration(Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty());
   }
 
   public static ExportConfiguration load(BriefcasePreferences prefs) {
@@ -96,7 +101,8 @@ public class ExportConfiguration {
         prefs.nullSafeGet(PULL_BEFORE).map(Boolean::valueOf),
         prefs.nullSafeGet(PULL_BEFORE_OVERRIDE).map(PullBeforeOverrideOption::from),
         prefs.nullSafeGet(OVERWRITE_EXISTING_FILES).map(Boolean::valueOf),
-        prefs.nullSafeGet(EXPORT_MEDIA).map(Boolean::valueOf)
+        prefs.nullSafeGet(EXPORT_MEDIA).map(Boolean::valueOf),
+        prefs.nullSafeGet(INCREMENTAL_EXPORT).map(Boolean::valueOf)
     );
   }
 
@@ -110,7 +116,8 @@ public class ExportConfiguration {
         prefs.nullSafeGet(keyPrefix + PULL_BEFORE).map(Boolean::valueOf),
         prefs.nullSafeGet(keyPrefix + PULL_BEFORE_OVERRIDE).map(PullBeforeOverrideOption::from),
         prefs.nullSafeGet(keyPrefix + OVERWRITE_EXISTING_FILES).map(Boolean::valueOf),
-        prefs.nullSafeGet(keyPrefix + EXPORT_MEDIA).map(Boolean::valueOf)
+        prefs.nullSafeGet(keyPrefix + EXPORT_MEDIA).map(Boolean::valueOf),
+        prefs.nullSafeGet(keyPrefix + INCREMENTAL_EXPORT).map(Boolean::valueOf)
     );
   }
 
@@ -127,7 +134,8 @@ public class ExportConfiguration {
         keyPrefix + PULL_BEFORE,
         keyPrefix + PULL_BEFORE_OVERRIDE,
         keyPrefix + OVERWRITE_EXISTING_FILES,
-        keyPrefix + EXPORT_MEDIA
+        keyPrefix + EXPORT_MEDIA,
+        keyPrefix + INCREMENTAL_EXPORT
     );
   }
 
@@ -147,6 +155,7 @@ public class ExportConfiguration {
     pullBeforeOverride.filter(ALL_EXCEPT_INHERIT).ifPresent(value -> map.put(keyPrefix + PULL_BEFORE_OVERRIDE, value.name()));
     overwriteExistingFiles.ifPresent(value -> map.put(keyPrefix + OVERWRITE_EXISTING_FILES, value.toString()));
     exportMedia.ifPresent(value -> map.put(keyPrefix + EXPORT_MEDIA, value.toString()));
+    incrementalExport.ifPresent(value -> map.put(keyPrefix + INCREMENTAL_EXPORT, value.toString()));
     return map;
   }
 
@@ -159,8 +168,9 @@ public class ExportConfiguration {
         pullBefore,
         pullBeforeOverride,
         overwriteExistingFiles,
-        exportMedia
-    );
+        exportMedia,
+        incrementalExport
+    ).withMaxBufferedSubmissions(maxBufferedSubmissions).withScratchDir(scratchDir);
   }
 
   public Optional<Path> getExportDir() {
@@ -239,6 +249,58 @@ public class ExportConfiguration {
     return this;
   }
 
+  /**
+   * When true, exports will only append the submissions that are new since the
+   * last export to the existing output files. If any previously exported submission
+   * has changed, all the output files get rewritten.
+   */
+  public Optional<Boolean> getIncrementalExport() {
+    return incrementalExport;
+  }
+
+  public ExportConfiguration setIncrementalExport(Boolean value) {
+    this.incrementalExport = Optional.ofNullable(value);
+    return this;
+  }
+
+  /**
+   * Returns the max number of submissions that can be held in memory while
+   * exporting, which puts a bound to the heap used by exports of big forms.
+   */
+  public Optional<Integer> getMaxBufferedSubmissions() {
+    return maxBufferedSubmissions;
+  }
+
+  public ExportConfiguration setMaxBufferedSubmissions(Integer value) {
+    this.maxBufferedSubmissions = Optional.ofNullable(value);
+    return this;
+  }
+
+  private ExportConfiguration withMaxBufferedSubmissions(Optional<Integer> value) {
+    this.maxBufferedSubmissions = value;
+    return this;
+  }
+
+  /**
+   * Returns the directory where decrypted files are temporarily written while
+   * exporting. The system's temporary directory is used when it's not present.
+   *
+   * @see ScratchSpace
+   */
+  public Optional<Path> getScratchDir() {
+    return scratchDir;
+  }
+
+  public ExportConfiguration setScratchDir(Path value) {
+    this.scratchDir = Optional.ofNullable(value);
+    return this;
+  }
+
+  private ExportConfiguration withScratchDir(Optional<Path> value) {
+    this.scratchDir = value;
+    return this;
+  }
+
   /**
    * Resolves if we need to pull forms depending on the pullBefore and pullBeforeOverride
    * settings with the following algorithm:
@@ -296,6 +358,10 @@ public class ExportConfiguration {
     exportMedia.ifPresent(consumer);
   }
 
+  public void ifIncrementalExportPresent(Consumer<Boolean> consumer) {
+    incrementalExport.ifPresent(consumer);
+  }
+
   private List<String> getErrors() {
     List<String> errors = new ArrayList<>();
 
@@ -320,6 +386,8 @@ public class ExportConfiguration {
       errors.add("Missing date range start definition");
     if (!isDateRangeValid())
       errors.add(INVALID_DATE_RANGE_MESSAGE);
+    if (maxBufferedSubmissions.filter(value -> value < 1).isPresent())
+      errors.add("The max number of buffered submissions must be greater than zero");
     return errors;
   }
 
@@ -356,7 +424,8 @@ public class ExportConfiguration {
         && !pullBefore.isPresent()
         && !pullBeforeOverride.filter(ALL_EXCEPT_INHERIT).isPresent()
         && !overwriteExistingFiles.isPresent()
-        && !exportMedia.isPresent();
+        && !exportMedia.isPresent()
+        && !incrementalExport.isPresent();
   }
 
   public boolean isValid() {
@@ -392,8 +461,10 @@ public class ExportConfiguration {
         pullBefore.isPresent() ? pullBefore : defaultConfiguration.pullBefore,
         pullBeforeOverride.isPresent() ? pullBeforeOverride : defaultConfiguration.pullBeforeOverride,
         overwriteExistingFiles.isPresent() ? overwriteExistingFiles : defaultConfiguration.overwriteExistingFiles,
-        exportMedia.isPresent() ? exportMedia : defaultConfiguration.exportMedia
-    );
+        exportMedia.isPresent() ? exportMedia : defaultConfiguration.exportMedia,
+        incrementalExport.isPresent() ? incrementalExport : defaultConfiguration.incrementalExport
+    ).withMaxBufferedSubmissions(maxBufferedSubmissions.isPresent() ? maxBufferedSubmissions : defaultConfiguration.maxBufferedSubmissions)
+        .withScratchDir(scratchDir.isPresent() ? scratchDir : defaultConfiguration.scratchDir);
   }
 
   @Override
@@ -407,6 +478,7 @@ public class ExportConfiguration {
         ", pullBeforeOverride=" + pullBeforeOverride +
         ", overwriteExistingFiles=" + overwriteExistingFiles +
         ", exportMedia=" + exportMedia +
+        ", incrementalExport=" + incrementalExport +
         '}';
   }
 
@@ -424,12 +496,13 @@ public class ExportConfiguration {
         Objects.equals(pullBefore, that.pullBefore) &&
         Objects.equals(pullBeforeOverride, that.pullBeforeOverride) &&
         Objects.equals(overwriteExistingFiles, that.overwriteExistingFiles) &&
-        Objects.equals(exportMedia, that.exportMedia);
+        Objects.equals(exportMedia, that.exportMedia) &&
+        Objects.equals(incrementalExport, that.incrementalExport);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(exportDir, pemFile, startDate, endDate, pullBefore, pullBeforeOverride, overwriteExistingFiles, exportMedia);
+    return Objects.hash(exportDir, pemFile, startDate, endDate, pullBefore, pullBeforeOverride, overwriteExistingFiles, exportMedia, incrementalExport);
   }
 
   public static ErrorsOr<PrivateKey> readPemFile(Path pemFile) {
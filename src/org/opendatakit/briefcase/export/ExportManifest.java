@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.checksumOf;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class represents the list of submissions that have been exported to
+ * some main CSV output file, along with the checksum their submission files
+ * had when they were exported.
+ * <p>
+ * It is stored as a hidden file next to the output file, along with the date
+ * range of the export, and it's used by incremental exports to know which
+ * submissions are new or have changed since the last export.
+ * <p>
+ * Submissions that were skipped because they couldn't be parsed are also
+ * recorded, so that they don't get exported again until they change.
+ *
+ * @see ExportConfiguration#getIncrementalExport()
+ */
+class ExportManifest {
+  private static final Logger log = LoggerFactory.getLogger(ExportManifest.class);
+  private static final String HEADER = "# export manifest v2";
+  private static final String DATE_RANGE_PREFIX = "# date range ";
+  private static final String SKIPPED = "skipped";
+
+  private final Path manifestFile;
+  private final Map<String, Long> checksums;
+  private final Map<String, Long> skippedChecksums;
+  private String dateRange;
+
+  private ExportManifest(Path manifestFile, Map<String, Long> checksums, Map<String, Long> skippedChecksums, String dateRange) {
+    this.manifestFile = manifestFile;
+    this.checksums = checksums;
+    this.skippedChecksums = skippedChecksums;
+    this.dateRange = dateRange;
+  }
+
+  /**
+   * Factory that loads the manifest of the given main CSV output file.
+   * <p>
+   * If there's no manifest, or it can't be read, an empty manifest is returned.
+   *
+   * @param output the {@link Path} to the main CSV output file
+   * @return a new {@link ExportManifest} instance
+   */
+  static ExportManifest load(Path output) {
+    Path manifestFile = output.resolveSibling("." + output.getFileName() + ".manifest");
+    Map<String, Long> checksums = new HashMap<>();
+    Map<String, Long> skippedChecksums = new HashMap<>();
+    String dateRange = null;
+    if (Files.exists(manifestFile)) {
+      try (BufferedReader reader = Files.newBufferedReader(manifestFile, UTF_8)) {
+        String dateRangeLine;
+        if (HEADER.equals(reader.readLine()) && (dateRangeLine = reader.readLine()) != null && dateRangeLine.startsWith(DATE_RANGE_PREFIX)) {
+          dateRange = dateRangeLine.substring(DATE_RANGE_PREFIX.length());
+          String line;
+          while ((line = reader.readLine()) != null) {
+            String[] parts = line.split("\t");
+            (parts.length > 2 && parts[2].equals(SKIPPED) ? skippedChecksums : checksums).put(parts[0], Long.parseLong(parts[1]));
+          }
+        }
+      } catch (IOException | RuntimeException e) {
+        log.warn("Can't read the export manifest", e);
+        checksums.clear();
+        skippedChecksums.clear();
+        dateRange = null;
+      }
+    }
+    return new ExportManifest(manifestFile, checksums, skippedChecksums, dateRange);
+  }
+
+  boolean isEmpty() {
+    return checksums.isEmpty();
+  }
+
+  /**
+   * Returns true if the output files were exported with the given date range.
+   */
+  boolean hasDateRange(DateRange dateRange) {
+    return dateRange.toString().equals(this.dateRange);
+  }
+
+  /**
+   * Returns true if the given submission file has been exported before, no
+   * matter if it has changed since then.
+   */
+  boolean contains(Path submissionFile) {
+    return checksums.containsKey(getKey(submissionFile));
+  }
+
+  /**
+   * Returns true if the given submission file has been exported before and
+   * it hasn't changed since then.
+   */
+  boolean isExported(Path submissionFile) {
+    Long checksum = checksums.get(getKey(submissionFile));
+    return checksum != null && checksum == checksumOf(submissionFile);
+  }
+
+  /**
+   * Returns true if the given submission file was skipped by the last export
+   * and it hasn't changed since then.
+   */
+  boolean isSkipped(Path submissionFile) {
+    Long checksum = skippedChecksums.get(getKey(submissionFile));
+    return checksum != null && checksum == checksumOf(submissionFile);
+  }
+
+  /**
+   * Forgets all the submissions of this manifest.
+   */
+  void clear() {
+    checksums.clear();
+    skippedChecksums.clear();
+  }
+
+  /**
+   * Deletes the manifest from disk while its output files are being written.
+   * <p>
+   * This way, if the export is interrupted, the next incremental export won't
+   * trust a manifest that doesn't match the contents of the output files.
+   */
+  void invalidate() {
+    try {
+      Files.deleteIfExists(manifestFile);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Records the current checksum of the given exported and skipped submission
+   * files, and the date range they were exported with, and writes the manifest
+   * to disk.
+   */
+  void record(Collection<Path> exportedFiles, Collection<Path> skippedFiles, DateRange dateRange) {
+    this.dateRange = dateRange.toString();
+    exportedFiles.forEach(submissionFile -> {
+      checksums.put(getKey(submissionFile), checksumOf(submissionFile));
+      skippedChecksums.remove(getKey(submissionFile));
+    });
+    skippedFiles.forEach(submissionFile -> skippedChecksums.put(getKey(submissionFile), checksumOf(submissionFile)));
+    Path tempFile = manifestFile.resolveSibling(manifestFile.getFileName() + ".tmp");
+    try {
+      try (BufferedWriter writer = Files.newBufferedWriter(tempFile, UTF_8)) {
+        writer.write(HEADER);
+        writer.newLine();
+        writer.write(DATE_RANGE_PREFIX + dateRange);
+        writer.newLine();
+        for (Map.Entry<String, Long> entry : checksums.entrySet()) {
+          writer.write(entry.getKey() + "\t" + entry.getValue());
+          writer.newLine();
+        }
+        for (Map.Entry<String, Long> entry : skippedChecksums.entrySet()) {
+          writer.write(entry.getKey() + "\t" + entry.getValue() + "\t" + SKIPPED);
+          writer.newLine();
+        }
+      }
+      Files.move(tempFile, manifestFile, REPLACE_EXISTING, ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Submissions are identified by the name of their instance directory, which
+   * is derived from their instance ID.
+   */
+  private static String getKey(Path submissionFile) {
+    return submissionFile.getParent().getFileName().toString();
+  }
+}
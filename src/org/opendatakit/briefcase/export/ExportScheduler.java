@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static java.util.Comparator.comparingLong;
+import static java.util.stream.Collectors.toList;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.list;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import org.bushe.swing.event.EventBus;
+import org.opendatakit.briefcase.model.BriefcasePreferences;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class runs the export of several forms at once, sharing a bounded
+ * number of threads between all of them.
+ * <p>
+ * Up to the given parallelism, forms are exported at the same time, and all
+ * of them share the same {@link ExportStages} to read and process their
+ * submissions.
+ * <p>
+ * Forms with more submissions are started first, to avoid having a big form
+ * running alone at the end of the export.
+ */
+public class ExportScheduler {
+  private static final Logger log = LoggerFactory.getLogger(ExportScheduler.class);
+  public static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+  public static final int DEFAULT_IO_THREADS = ExportStages.DEFAULT_IO_THREADS;
+  private final int parallelism;
+  private final int ioThreads;
+  private final List<Job> jobs = new ArrayList<>();
+
+  /**
+   * Main constructor for {@link ExportScheduler} instances.
+   *
+   * @param parallelism the max number of forms exported at the same time, which is
+   *                    also the max number of threads used to process submissions
+   * @param ioThreads   the max number of threads used to read submissions
+   */
+  public ExportScheduler(int parallelism, int ioThreads) {
+    if (parallelism < 1 || ioThreads < 1)
+      throw new IllegalArgumentException("The parallelism and the number of I/O threads must be greater than zero");
+    this.parallelism = parallelism;
+    this.ioThreads = ioThreads;
+  }
+
+  /**
+   * Factory of {@link ExportScheduler} instances with the given parallelism, and
+   * the default number of I/O threads.
+   */
+  public static ExportScheduler withParallelism(int parallelism) {
+    return new ExportScheduler(parallelism, DEFAULT_IO_THREADS);
+  }
+
+  /**
+   * Factory of {@link ExportScheduler} instances that use as many threads as
+   * available processors, and the default number of I/O threads.
+   */
+  public static ExportScheduler withDefaultParallelism() {
+    return withParallelism(DEFAULT_PARALLELISM);
+  }
+
+  /**
+   * Factory of {@link ExportScheduler} instances that use the parallelism and
+   * number of I/O threads set in the given preferences, or the defaults.
+   */
+  public static ExportScheduler from(BriefcasePreferences appPreferences) {
+    return new ExportScheduler(
+        appPreferences.getExportParallelism().orElse(DEFAULT_PARALLELISM),
+        appPreferences.getExportIoThreads().orElse(DEFAULT_IO_THREADS)
+    );
+  }
+
+  /**
+   * Schedules the export of a form.
+   */
+  public ExportScheduler schedule(FormDefinition formDef, ExportConfiguration configuration) {
+    return schedule(formDef, configuration, () -> { });
+  }
+
+  /**
+   * Schedules the export of a form, with a task that has to be run before
+   * exporting it, like pulling its submissions.
+   */
+  public ExportScheduler schedule(FormDefinition formDef, ExportConfiguration configuration, Runnable beforeExport) {
+    jobs.add(new Job(formDef, configuration, beforeExport, countSubmissions(formDef)));
+    return this;
+  }
+
+  /**
+   * Exports all the scheduled forms and blocks until all of them are done.
+   * <p>
+   * A failure while exporting a form doesn't stop the export of the other
+   * forms. It's reported with an {@link ExportEvent} instead.
+   *
+   * @return the list of {@link FormDefinition} of the forms that have been exported
+   *     without errors
+   */
+  public List<FormDefinition> run() {
+    ExecutorService formsExecutor = Executors.newFixedThreadPool(parallelism);
+    try (ExportStages stages = new ExportStages(parallelism, ioThreads)) {
+      // Jobs are queued in order, which means that bigger forms get started first
+      List<CompletableFuture<Optional<FormDefinition>>> tasks = jobs.stream()
+          .sorted(comparingLong((Job job) -> job.submissions).reversed())
+          .map(job -> CompletableFuture.supplyAsync(() -> job.run(stages) ? Optional.of(job.formDef) : Optional.<FormDefinition>empty(), formsExecutor))
+          .collect(toList());
+      return tasks.stream()
+          .map(CompletableFuture::join)
+          .filter(Optional::isPresent)
+          .map(Optional::get)
+          .collect(toList());
+    } finally {
+      jobs.clear();
+      formsExecutor.shutdown();
+    }
+  }
+
+  private static long countSubmissions(FormDefinition formDef) {
+    Path instancesDir = formDef.getFormDir().resolve("instances");
+    if (!Files.isDirectory(instancesDir))
+      return 0;
+    try (Stream<Path> instances = list(instancesDir)) {
+      return instances.count();
+    }
+  }
+
+  private static class Job {
+    private final FormDefinition formDef;
+    private final ExportConfiguration configuration;
+    private final Runnable beforeExport;
+    private final long submissions;
+
+    Job(FormDefinition formDef, ExportConfiguration configuration, Runnable beforeExport, long submissions) {
+      this.formDef = formDef;
+      this.configuration = configuration;
+      this.beforeExport = beforeExport;
+      this.submissions = submissions;
+    }
+
+    boolean run(ExportStages stages) {
+      try {
+        beforeExport.run();
+        ExportToCsv.export(formDef, configuration, stages);
+        return true;
+      } catch (Throwable t) {
+        log.error("Error while exporting form {}", formDef.getFormId(), t);
+        EventBus.publish(ExportEvent.failure(formDef, "Unexpected error. See logs"));
+        return false;
+      }
+    }
+  }
+}
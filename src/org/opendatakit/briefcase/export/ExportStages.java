@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static java.util.stream.Collectors.toList;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.readAllBytes;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import org.opendatakit.briefcase.reused.Pair;
+
+/**
+ * This class holds the executors used to run the stages of an export, which
+ * keeps exports from running on the JVM-wide common pool.
+ * <ul>
+ * <li>The I/O stage runs on a fixed pool of threads that read the contents of
+ * the submission files</li>
+ * <li>The CPU stage runs on a {@link ForkJoinPool}, which is where parallel
+ * streams that parse and map submissions get their threads from</li>
+ * <li>The media stage runs on its own fixed pool of threads that copy media
+ * files to the export directory, which lets CSV files get written without
+ * having to wait for them</li>
+ * </ul>
+ * The same instance can be shared by several exports running at the same time.
+ */
+class ExportStages implements AutoCloseable {
+  static final int DEFAULT_IO_THREADS = 4;
+  private final ExecutorService ioExecutor;
+  private final ForkJoinPool cpuPool;
+  private final ExecutorService mediaExecutor;
+  private final Map<Path, MediaStore> mediaStores = new ConcurrentHashMap<>();
+
+  ExportStages(int cpuThreads, int ioThreads) {
+    if (cpuThreads < 1 || ioThreads < 1)
+      throw new IllegalArgumentException("The number of threads of each stage must be greater than zero");
+    this.ioExecutor = Executors.newFixedThreadPool(ioThreads, daemonThreads("export-io-"));
+    this.cpuPool = new ForkJoinPool(cpuThreads);
+    this.mediaExecutor = Executors.newFixedThreadPool(ioThreads, daemonThreads("export-media-"));
+  }
+
+  /**
+   * Factory of {@link ExportStages} instances with as many CPU threads as
+   * available processors, and {@link ExportStages#DEFAULT_IO_THREADS} threads
+   * in each I/O stage.
+   */
+  static ExportStages withDefaults() {
+    return new ExportStages(Runtime.getRuntime().availableProcessors(), DEFAULT_IO_THREADS);
+  }
+
+  /**
+   * Reads the contents of the given files in the I/O stage.
+   *
+   * @return a {@link CompletableFuture} that completes with the list of files and their contents,
+   *     in the same order they were given
+   */
+  CompletableFuture<List<Pair<Path, byte[]>>> read(List<Path> files) {
+    List<CompletableFuture<Pair<Path, byte[]>>> reads = files.stream()
+        .map(file -> CompletableFuture.supplyAsync(() -> Pair.of(file, readAllBytes(file)), ioExecutor))
+        .collect(toList());
+    return CompletableFuture.allOf(reads.toArray(new CompletableFuture[0]))
+        .thenApply(__ -> reads.stream().map(CompletableFuture::join).collect(toList()));
+  }
+
+  /**
+   * Runs the given work in the CPU stage and blocks until it's done.
+   */
+  void process(Runnable work) {
+    cpuPool.submit(work).join();
+  }
+
+  /**
+   * Returns a new {@link MediaStore} of the given media directory that copies
+   * files in the media stage.
+   * <p>
+   * The index of each media directory is loaded once, and shared by all the
+   * stores of that directory, which keeps exports that run at the same time
+   * from taking the same file names.
+   *
+   * @see MediaStore#withTransientFiles(Predicate)
+   */
+  MediaStore mediaStore(Path mediaDir, Predicate<Path> isTransient) {
+    return mediaStores
+        .computeIfAbsent(mediaDir.toAbsolutePath().normalize(), dir -> MediaStore.load(dir, mediaExecutor, __ -> false))
+        .withTransientFiles(isTransient);
+  }
+
+  @Override
+  public void close() {
+    ioExecutor.shutdownNow();
+    cpuPool.shutdownNow();
+    mediaExecutor.shutdownNow();
+  }
+
+  private static ThreadFactory daemonThreads(String prefix) {
+    AtomicInteger sequence = new AtomicInteger(0);
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + sequence.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -16,34 +16,48 @@
 
 package org.opendatakit.briefcase.export;
 
-import static java.util.stream.Collectors.groupingByConcurrent;
-import static java.util.stream.Collectors.reducing;
 import static java.util.stream.Collectors.toList;
 import static org.opendatakit.briefcase.export.ExportOutcome.ALL_EXPORTED;
 import static org.opendatakit.briefcase.export.ExportOutcome.ALL_SKIPPED;
 import static org.opendatakit.briefcase.export.ExportOutcome.SOME_SKIPPED;
 import static org.opendatakit.briefcase.export.SubmissionParser.getListOfSubmissionFiles;
 import static org.opendatakit.briefcase.export.SubmissionParser.parseSubmission;
+import static org.opendatakit.briefcase.reused.Lists.partition;
 import static org.opendatakit.briefcase.reused.UncheckedFiles.createDirectories;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import org.bushe.swing.event.EventBus;
 import org.opendatakit.briefcase.model.BriefcaseFormDefinition;
 import org.opendatakit.briefcase.reused.BriefcaseException;
+import org.opendatakit.briefcase.reused.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class ExportToCsv {
   private static final Logger log = LoggerFactory.getLogger(ExportToCsv.class);
+  /**
+   * Default max number of submissions that will be parsed and held in memory
+   * before writing their lines to the output files.
+   *
+   * @see ExportConfiguration#getMaxBufferedSubmissions()
+   */
+  private static final int DEFAULT_SUBMISSIONS_PER_BATCH = 1000;
 
   /**
    * Export a form's submissions into some CSV files.
    * <p>
    * If the form has repeat groups, each repeat group will be exported into a separate CSV file.
+   * <p>
+   * Incremental exports only append the submissions that haven't been exported yet to the
+   * existing output files. If that's not possible, all the output files get rewritten.
    *
    * @param formDef       the {@link BriefcaseFormDefinition} form definition of the form to be exported
    * @param configuration the {@link ExportConfiguration} export configuration
@@ -51,50 +65,106 @@ public class ExportToCsv {
    * @see ExportConfiguration
    */
   public static ExportOutcome export(FormDefinition formDef, ExportConfiguration configuration) {
+    try (ExportStages stages = ExportStages.withDefaults()) {
+      return export(formDef, configuration, stages);
+    }
+  }
+
+  /**
+   * Export a form's submissions into some CSV files, using the given {@link ExportStages}
+   * to read and process them.
+   *
+   * @see ExportToCsv#export(FormDefinition, ExportConfiguration)
+   */
+  static ExportOutcome export(FormDefinition formDef, ExportConfiguration configuration, ExportStages stages) {
     // Create an export tracker object with the total number of submissions we have to export
     ExportProcessTracker exportTracker = new ExportProcessTracker(formDef);
     exportTracker.start();
 
     List<Path> submissionFiles = getListOfSubmissionFiles(formDef, configuration.getDateRange());
-    exportTracker.trackTotal(submissionFiles.size());
 
     createDirectories(configuration.getExportDir().orElseThrow(BriefcaseException::new));
 
-    // Prepare the list of csv files we will export:
-    //  - one for the main instance
-    //  - one for each repeat group
-    List<Csv> csvs = new ArrayList<>();
-    csvs.add(Csv.main(formDef, configuration));
-    csvs.addAll(formDef.getModel().getRepeatableFields().stream()
-        .map(groupModel -> Csv.repeat(formDef, groupModel, configuration))
-        .collect(toList()));
+    // All the output files share the same media directory. Media files are copied in the
+    // media stage, except the decrypted ones, which get wiped as soon as their submission is mapped
+    ScratchSpace scratchSpace = ScratchSpace.in(configuration.getScratchDir());
+    MediaStore mediaStore = stages.mediaStore(configuration.getExportMediaPath(), scratchSpace::contains);
+    List<Csv> csvs = getCsvs(formDef, configuration, mediaStore);
+
+    // The manifest keeps track of the submissions written to the output files
+    ExportManifest manifest = ExportManifest.load(csvs.get(0).getOutput());
+    if (configuration.getOverwriteExistingFiles().orElse(false))
+      manifest.clear();
+    else if (configuration.getIncrementalExport().orElse(false)) {
+      // Submissions that were skipped before won't be exported until they change
+      List<Path> unskippedFiles = submissionFiles.stream().filter(path -> !manifest.isSkipped(path)).collect(toList());
+      List<Path> pendingFiles = unskippedFiles.stream().filter(path -> !manifest.isExported(path)).collect(toList());
+      // We can only append to the output files if they match the manifest, they were exported with
+      // the same date range, none of the submissions we have already exported has changed, and
+      // appending the pending submissions keeps the output sorted by submission date
+      if (manifest.isEmpty()
+          || !manifest.hasDateRange(configuration.getDateRange())
+          || !csvs.stream().allMatch(Csv::exists)
+          || pendingFiles.stream().anyMatch(manifest::contains)
+          || !comeLast(pendingFiles, unskippedFiles)) {
+        log.info("Output files can't be updated incrementally. All submissions will be exported again");
+        manifest.clear();
+        csvs = getCsvs(formDef, configuration.copy().setOverwriteExistingFiles(true), mediaStore);
+      } else
+        submissionFiles = pendingFiles;
+    }
+    exportTracker.trackTotal(submissionFiles.size());
 
     csvs.forEach(Csv::prepareOutputFiles);
-
-    // Generate csv lines grouped by the fqdn of the model they belong to
-    Map<String, CsvLines> csvLinesPerModel = submissionFiles.parallelStream()
-        // Parse the submission and leave only those OK to be exported
-        .map(path -> parseSubmission(path, formDef.isFileEncryptedForm(), configuration.getPrivateKey()))
-        .filter(Optional::isPresent)
-        .map(Optional::get)
-        // Track the submission
-        .peek(s -> exportTracker.incAndReport())
-        // Use the mapper of each Csv instance to map the submission into their respective outputs
-        .flatMap(submission -> csvs.stream()
-            .map(Csv::getMapper)
-            .map(mapper -> mapper.apply(submission)))
-        // Group and merge the CsvLines by the model they belong to
-        .collect(groupingByConcurrent(
-            CsvLines::getModelFqn,
-            reducing(CsvLines.empty(), CsvLines::merge)
-        ));
-
-    // TODO We should have an extra step to produce the side effect of writing media files to disk to avoid having side-effects while generating the CSV output of binary fields
-
-    // Write lines to each output Csv
-    csvs.forEach(csv -> csv.appendLines(
-        Optional.ofNullable(csvLinesPerModel.get(csv.getModelFqn())).orElse(CsvLines.empty())
-    ));
+    manifest.invalidate();
+
+    // Submissions are processed in batches to keep memory usage bounded no matter how
+    // many submissions we have to export. Since the list of submission files is already
+    // sorted by submission date, each batch is a sorted run that comes after the previous
+    // one, and writing them in order keeps the output sorted without having to merge them.
+    int submissionsPerBatch = configuration.getMaxBufferedSubmissions().orElse(DEFAULT_SUBMISSIONS_PER_BATCH);
+    CsvLinesSink sink = new CsvLinesSink();
+    Set<Path> exportedFiles = ConcurrentHashMap.newKeySet();
+    List<CsvSubmissionMapper> mappers = csvs.stream().map(Csv::getMapper).collect(toList());
+    // The private key is read once and shared by all the submissions
+    Optional<DecryptionContext> decryptionContext = DecryptionContext.from(configuration);
+    boolean isEncrypted = formDef.isFileEncryptedForm();
+    boolean exportMedia = configuration.getExportMedia().orElse(true);
+    Function<Pair<Path, byte[]>, Optional<Submission>> parser = file ->
+        parseSubmission(file.getLeft(), file.getRight(), isEncrypted, exportMedia, scratchSpace, decryptionContext);
+    List<List<Path>> batches = partition(submissionFiles, submissionsPerBatch);
+    try {
+      // The contents of the next batch are read while the current one gets processed. Reading
+      // only one batch ahead puts a bound on how far the I/O stage can get ahead of the CPU stage
+      CompletableFuture<List<Pair<Path, byte[]>>> nextBatch = batches.isEmpty() ? null : stages.read(batches.get(0));
+      for (int i = 0; i < batches.size(); i++) {
+        List<Pair<Path, byte[]>> batch = nextBatch.join();
+        nextBatch = i + 1 < batches.size() ? stages.read(batches.get(i + 1)) : null;
+
+        stages.process(() -> mapBatch(batch, parser, mappers, scratchSpace, exportTracker, sink, exportedFiles));
+
+        // Write lines to each output Csv
+        for (Csv csv : csvs)
+          csv.appendLines(sink.drain(csv.getModelFqn()));
+      }
+    } finally {
+      // Output files are complete once all the lines have been written, even if the media stage is still running.
+      // Each resource gets closed even if closing the previous ones fails
+      try {
+        csvs.forEach(Csv::close);
+      } finally {
+        try {
+          scratchSpace.close();
+        } finally {
+          mediaStore.close();
+        }
+      }
+    }
+    if (scratchSpace.getDirCount() > 0)
+      log.info("Export of form {} used {} scratch dirs, with {} bytes written in total and at most {} bytes per submission",
+          formDef.getFormId(), scratchSpace.getDirCount(), scratchSpace.getTotalBytes(), scratchSpace.getMaxBytes());
+    List<Path> skippedFiles = submissionFiles.stream().filter(path -> !exportedFiles.contains(path)).collect(toList());
+    manifest.record(exportedFiles, skippedFiles, configuration.getDateRange());
 
     exportTracker.end();
 
@@ -111,4 +181,59 @@ public class ExportToCsv {
     return exportOutcome;
   }
 
+  /**
+   * Returns true if the given pending submission files come after all the other
+   * submission files, which are sorted by submission date.
+   */
+  private static boolean comeLast(List<Path> pendingFiles, List<Path> submissionFiles) {
+    Set<Path> pending = new HashSet<>(pendingFiles);
+    return submissionFiles.subList(submissionFiles.size() - pending.size(), submissionFiles.size()).stream().allMatch(pending::contains);
+  }
+
+  /**
+   * Prepares the list of csv files we will export:
+   * <ul>
+   * <li>one for the main instance</li>
+   * <li>one for each repeat group</li>
+   * </ul>
+   */
+  private static List<Csv> getCsvs(FormDefinition formDef, ExportConfiguration configuration, MediaStore mediaStore) {
+    List<Csv> csvs = new ArrayList<>();
+    csvs.add(Csv.main(formDef, configuration, mediaStore));
+    csvs.addAll(formDef.getModel().getRepeatableFields().stream()
+        .map(groupModel -> Csv.repeat(formDef, groupModel, configuration, mediaStore))
+        .collect(toList()));
+    return csvs;
+  }
+
+  /**
+   * Generates the csv lines of a batch of submission files and their contents, and sends them to the given
+   * {@link CsvLinesSink}, which groups them by the fqdn of the model they belong to.
+   * <p>
+   * The submission files that get exported are added to the given set.
+   */
+  private static void mapBatch(List<Pair<Path, byte[]>> batch, Function<Pair<Path, byte[]>, Optional<Submission>> parser, List<CsvSubmissionMapper> mappers, ScratchSpace scratchSpace, ExportProcessTracker exportTracker, CsvLinesSink sink, Set<Path> exportedFiles) {
+    batch.parallelStream()
+        // Parse the submission and leave only those OK to be exported
+        .map(file -> parser.apply(file).map(submission -> Pair.of(file.getLeft(), submission)))
+        .filter(Optional::isPresent)
+        .map(Optional::get)
+        // Track the submission
+        .peek(pair -> exportedFiles.add(pair.getLeft()))
+        .map(Pair::getRight)
+        .peek(s -> exportTracker.incAndReport())
+        // Use the mapper of each Csv instance to map the submission into their respective outputs
+        .flatMap(submission -> mapSubmission(submission, mappers, scratchSpace).stream())
+        // Send the CsvLines to the sink, which will group them by the model they belong to
+        .forEach(sink::accept);
+  }
+
+  private static List<CsvLines> mapSubmission(Submission submission, List<CsvSubmissionMapper> mappers, ScratchSpace scratchSpace) {
+    try {
+      return mappers.stream().map(mapper -> mapper.apply(submission)).collect(toList());
+    } finally {
+      // Any decrypted file is no longer needed once the submission has been mapped
+      scratchSpace.release();
+    }
+  }
 }
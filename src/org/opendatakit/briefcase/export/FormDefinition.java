@@ -22,18 +22,27 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import org.javarosa.core.model.FormDef;
 import org.javarosa.core.model.instance.TreeElement;
 import org.javarosa.xform.parse.XFormParser;
 import org.opendatakit.briefcase.model.BriefcaseFormDefinition;
 import org.opendatakit.briefcase.model.ParsingException;
 import org.opendatakit.briefcase.reused.BriefcaseException;
+import org.opendatakit.briefcase.reused.Pair;
 
 /**
  * This class holds all the relevant information about the form being exported.
  */
 public class FormDefinition {
+  /**
+   * Compiled models of the forms that have been exported, indexed by their form
+   * definition file and its last modification time, which changes with each new
+   * version of the form.
+   */
+  private static final Map<Pair<Path, Long>, Model> MODELS = new ConcurrentHashMap<>();
   private final String id;
   private final String name;
   private final Path formFile;
@@ -91,10 +100,18 @@ public class FormDefinition {
         fd.getFormDefinitionFile().toPath(),
         fd.getFormName(),
         fd.isFileEncryptedForm(),
-        new Model(fd.getSubmissionElement())
+        getModel(fd)
     );
   }
 
+  private static Model getModel(BriefcaseFormDefinition fd) {
+    Path formFile = fd.getFormDefinitionFile().toPath();
+    Pair<Path, Long> key = Pair.of(formFile, formFile.toFile().lastModified());
+    // Forget the models of any previous version of this form
+    MODELS.keySet().removeIf(k -> k.getLeft().equals(formFile) && !k.equals(key));
+    return MODELS.computeIfAbsent(key, __ -> new Model(fd.getSubmissionElement()));
+  }
+
   private static String parseFormId(TreeElement root) {
     for (int attrIndex = 0; attrIndex < root.getAttributeCount(); attrIndex++) {
       String name = root.getAttributeName(attrIndex);
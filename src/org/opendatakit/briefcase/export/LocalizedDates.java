@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static java.text.DateFormat.DEFAULT;
+import static org.opendatakit.common.utils.WebUtils.parseDate;
+
+import java.text.DateFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.SimpleDateFormat;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.function.Function;
+
+/**
+ * This class formats date, time and dateTime values with the same output that
+ * the {@link DateFormat} instances of the default locale and time zone produce.
+ * <p>
+ * Each thread gets its own instance, which is rebuilt when the default locale or
+ * time zone change. Formatting is done with immutable {@link DateTimeFormatter}
+ * instances whenever the locale's patterns can be reproduced exactly with them,
+ * and falls back to the locale's {@link DateFormat} otherwise. Each instance also
+ * remembers the formatted output of the last values it has seen, since dates tend
+ * to repeat a lot across the submissions of a form.
+ */
+final class LocalizedDates {
+  private static final ThreadLocal<LocalizedDates> CURRENT = new ThreadLocal<>();
+  private static final int MAX_CACHED_VALUES = 1024;
+  // Out of this range, DateFormat and java.time can disagree on calendars, historical
+  // time zone offsets, and the sign of years with more than 4 digits
+  private static final long MIN_SAFE_MILLIS = -2208988800000L; // 1900-01-01T00:00:00Z
+  private static final long MAX_SAFE_MILLIS = 253402128000000L; // 9999-12-30T00:00:00Z
+
+  private final Locale locale;
+  private final String timeZoneId;
+  private final Style date;
+  private final Style time;
+  private final Style dateTime;
+
+  private LocalizedDates(Locale locale, TimeZone timeZone) {
+    this.locale = locale;
+    this.timeZoneId = timeZone.getID();
+    this.date = Style.of(DateFormat.getDateInstance(DEFAULT, locale), locale, timeZone);
+    this.time = Style.of(DateFormat.getTimeInstance(DEFAULT, locale), locale, timeZone);
+    this.dateTime = Style.of(DateFormat.getDateTimeInstance(DEFAULT, DEFAULT, locale), locale, timeZone);
+  }
+
+  /**
+   * Returns the instance of the current thread for the current default locale and time zone.
+   */
+  static LocalizedDates current() {
+    LocalizedDates dates = CURRENT.get();
+    Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+    TimeZone timeZone = TimeZone.getDefault();
+    if (dates == null || !dates.locale.equals(locale) || !dates.timeZoneId.equals(timeZone.getID())) {
+      dates = new LocalizedDates(locale, timeZone);
+      CURRENT.set(dates);
+    }
+    return dates;
+  }
+
+  /**
+   * Formats the given date value, in any of the formats supported by
+   * {@link org.opendatakit.common.utils.WebUtils#parseDate(String)}.
+   */
+  String formatDate(String value) {
+    return date.format(value);
+  }
+
+  /**
+   * Formats the given time value, in any of the formats supported by
+   * {@link org.opendatakit.common.utils.WebUtils#parseDate(String)}.
+   */
+  String formatTime(String value) {
+    return time.format(value);
+  }
+
+  /**
+   * Formats the given dateTime value, in any of the formats supported by
+   * {@link org.opendatakit.common.utils.WebUtils#parseDate(String)}.
+   */
+  String formatDateTime(String value) {
+    return dateTime.format(value);
+  }
+
+  /**
+   * Formats the given {@link Date} as a dateTime value.
+   */
+  String formatDateTime(Date value) {
+    return dateTime.formatter.apply(value);
+  }
+
+  private static final class Style {
+    private final Function<Date, String> formatter;
+    private final Map<String, String> formattedValues = new LinkedHashMap<String, String>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+        return size() > MAX_CACHED_VALUES;
+      }
+    };
+
+    private Style(Function<Date, String> formatter) {
+      this.formatter = formatter;
+    }
+
+    static Style of(DateFormat legacyFormat, Locale locale, TimeZone timeZone) {
+      if (!(legacyFormat instanceof SimpleDateFormat)
+          || !legacyFormat.getCalendar().getCalendarType().equals("gregory")
+          || DecimalFormatSymbols.getInstance(locale).getZeroDigit() != '0'
+          || !isTranslatable(((SimpleDateFormat) legacyFormat).toPattern()))
+        return new Style(legacyFormat::format);
+
+      DateTimeFormatter formatter = DateTimeFormatter.ofPattern(((SimpleDateFormat) legacyFormat).toPattern(), locale)
+          .withZone(timeZone.toZoneId());
+      // Some locales get different month or day names from each API, depending on the JVM's locale providers
+      if (!producesSameText(legacyFormat, formatter))
+        return new Style(legacyFormat::format);
+      return new Style(value -> value.getTime() >= MIN_SAFE_MILLIS && value.getTime() < MAX_SAFE_MILLIS
+          ? formatter.format(value.toInstant())
+          : legacyFormat.format(value));
+    }
+
+    String format(String value) {
+      String formattedValue = formattedValues.get(value);
+      if (formattedValue == null) {
+        formattedValue = formatter.apply(parseDate(value));
+        formattedValues.put(value, formattedValue);
+      }
+      return formattedValue;
+    }
+
+    /**
+     * Returns true if both formats produce the same output for dates with every
+     * month, day of week, and half of the day.
+     */
+    private static boolean producesSameText(DateFormat legacyFormat, DateTimeFormatter formatter) {
+      ZonedDateTime firstProbe = ZonedDateTime.of(2018, 1, 1, 1, 2, 3, 0, formatter.getZone());
+      List<ZonedDateTime> probes = new ArrayList<>();
+      for (int month = 0; month < 12; month++)
+        probes.add(firstProbe.plusMonths(month));
+      for (int day = 1; day < 7; day++)
+        probes.add(firstProbe.plusDays(day));
+      for (ZonedDateTime probe : probes)
+        for (Date value : Arrays.asList(Date.from(probe.toInstant()), Date.from(probe.plusHours(12).toInstant())))
+          if (!legacyFormat.format(value).equals(formatter.format(value.toInstant())))
+            return false;
+      return true;
+    }
+
+    /**
+     * Returns true if the given {@link SimpleDateFormat} pattern produces the same
+     * output with a {@link DateTimeFormatter}, which is true for the pattern letters
+     * and counts used by the localized date and time patterns of most locales.
+     */
+    private static boolean isTranslatable(String pattern) {
+      boolean quoted = false;
+      int i = 0;
+      while (i < pattern.length()) {
+        char c = pattern.charAt(i);
+        if (c == '\'') {
+          quoted = !quoted;
+          i++;
+          continue;
+        }
+        if (quoted) {
+          i++;
+          continue;
+        }
+        // These are reserved characters of DateTimeFormatter patterns
+        if (c == '[' || c == ']' || c == '{' || c == '}' || c == '#')
+          return false;
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+          int count = 1;
+          while (i + count < pattern.length() && pattern.charAt(i + count) == c)
+            count++;
+          if (!isTranslatable(c, count))
+            return false;
+          i += count;
+          continue;
+        }
+        i++;
+      }
+      return true;
+    }
+
+    private static boolean isTranslatable(char letter, int count) {
+      switch (letter) {
+        case 'G':
+          return count <= 3;
+        case 'M':
+        case 'E':
+          return count <= 4;
+        case 'a':
+          return count == 1;
+        case 'y':
+          return count <= 4;
+        case 'd':
+        case 'h':
+        case 'H':
+        case 'k':
+        case 'K':
+        case 'm':
+        case 's':
+          return count <= 2;
+        default:
+          return false;
+      }
+    }
+  }
+}
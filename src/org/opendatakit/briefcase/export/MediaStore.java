@@ -0,0 +1,442 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.getFileExtension;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.getMd5Hash;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.stripFileExtension;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class represents the media directory of an export, along with an index
+ * of the MD5 hash of every file in it, which is stored next to it.
+ * <p>
+ * The index also holds the hash of the source media files that have been exported,
+ * which means that re-exporting a form doesn't need to read its media files again
+ * to know if they're already in the media directory.
+ * <p>
+ * Entries of the index are validated against the size and last modification time
+ * of their files, and they get updated when they don't match.
+ * <p>
+ * Several exports can put files in the same media directory at the same time, as
+ * long as they use stores that share the same index.
+ *
+ * @see MediaStore#withTransientFiles(Predicate)
+ */
+class MediaStore {
+  private static final Logger log = LoggerFactory.getLogger(MediaStore.class);
+  static final String INDEX_FILE_NAME = ".media.index";
+  private static final String HEADER = "# media index v1";
+  private static final String MEDIA = "m";
+  private static final String SOURCE = "s";
+
+  private final Path mediaDir;
+  private final Path indexFile;
+  private final Executor copyExecutor;
+  private final Predicate<Path> isTransient;
+  private final Queue<CompletableFuture<Void>> pendingCopies = new ConcurrentLinkedQueue<>();
+  private final Index index;
+
+  private MediaStore(Path mediaDir, Path indexFile, Executor copyExecutor, Predicate<Path> isTransient, Index index) {
+    this.mediaDir = mediaDir;
+    this.indexFile = indexFile;
+    this.copyExecutor = copyExecutor;
+    this.isTransient = isTransient;
+    this.index = index;
+  }
+
+  /**
+   * Factory that loads the index of the given media directory. Files are copied
+   * to the media directory right away by the thread that puts them.
+   *
+   * @see MediaStore#load(Path, Executor, Predicate)
+   */
+  static MediaStore load(Path mediaDir) {
+    return load(mediaDir, Runnable::run, __ -> false);
+  }
+
+  /**
+   * Factory that loads the index of the given media directory.
+   * <p>
+   * If there's no index, or it can't be read, an empty index is used.
+   *
+   * @param mediaDir     the {@link Path} to the media directory of an export
+   * @param copyExecutor the {@link Executor} that copies files to the media directory
+   * @param isTransient  the {@link Predicate} that tells which source files can be deleted
+   *                     as soon as they're put in the media store, which are copied right away
+   * @return a new {@link MediaStore} instance
+   */
+  static MediaStore load(Path mediaDir, Executor copyExecutor, Predicate<Path> isTransient) {
+    Path indexFile = mediaDir.resolveSibling(INDEX_FILE_NAME);
+    Map<String, Entry> mediaFiles = new HashMap<>();
+    Map<String, Entry> sourceFiles = new ConcurrentHashMap<>();
+    if (Files.exists(indexFile)) {
+      try (BufferedReader reader = Files.newBufferedReader(indexFile, UTF_8)) {
+        if (HEADER.equals(reader.readLine())) {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            String[] parts = line.split("\t");
+            Entry entry = new Entry(Long.parseLong(parts[2]), Long.parseLong(parts[3]), parts[4]);
+            (parts[0].equals(MEDIA) ? mediaFiles : sourceFiles).put(parts[1], entry);
+          }
+        }
+      } catch (IOException | RuntimeException e) {
+        log.warn("Can't read the media index. It will be rebuilt", e);
+        mediaFiles.clear();
+        sourceFiles.clear();
+      }
+    }
+    return new MediaStore(mediaDir, indexFile, copyExecutor, isTransient, new Index(mediaFiles, sourceFiles));
+  }
+
+  /**
+   * Returns a new store of the same media directory that shares this store's index,
+   * and copies files with the same {@link Executor}.
+   * <p>
+   * Names are reserved in the shared index, which keeps stores from exporting
+   * different files with the same name. Each store only waits for its own files
+   * when it gets closed.
+   *
+   * @param isTransient the {@link Predicate} that tells which source files can be deleted
+   *                    as soon as they're put in the new store, which are copied right away
+   * @return a new {@link MediaStore} instance
+   */
+  MediaStore withTransientFiles(Predicate<Path> isTransient) {
+    return new MediaStore(mediaDir, indexFile, copyExecutor, isTransient, index);
+  }
+
+  Path getMediaDir() {
+    return mediaDir;
+  }
+
+  /**
+   * Exports the given source file to the media directory with the given file name.
+   * <ul>
+   * <li>If there's no file with that name, the source file is exported with that name</li>
+   * <li>If there's a file with that name, or any of its numbered names, with the same
+   * contents as the source file, nothing gets exported, and the name of that file is
+   * returned</li>
+   * <li>Otherwise, the source file is exported with the next free numbered name, like
+   * "name-2.jpg", "name-3.jpg"...</li>
+   * </ul>
+   * The name of the exported file is returned right away, but the file might not be
+   * in the media directory until {@link MediaStore#close()} returns.
+   *
+   * @return the name of the file in the media directory that has the contents of the source file
+   * @see MediaStore#exportFile(Path, Optional, String)
+   */
+  String put(Path sourceFile, String fileName) {
+    Optional<String> hash = getSourceHash(sourceFile);
+    String exportedName;
+    Optional<String> duplicateName;
+    synchronized (index) {
+      if (!isTaken(fileName))
+        exportedName = fileName;
+      else if (hash.isPresent() && hash.equals(getMediaHash(fileName)))
+        return fileName;
+      else {
+        Optional<String> numberedName = hash.flatMap(this::findByHash).filter(name -> isNumberedNameOf(name, fileName));
+        if (numberedName.isPresent())
+          return numberedName.get();
+        String nextNumberedName = nextNumberedName(fileName, hash);
+        if (isTaken(nextNumberedName))
+          return nextNumberedName;
+        exportedName = nextNumberedName;
+      }
+      duplicateName = hash.flatMap(this::findByHash);
+      // Reserve the name before leaving the lock. Its hash won't be validated until the
+      // index gets saved because the file won't be complete until we're done with it
+      index.mediaFiles.put(exportedName, Entry.pending(hash.orElse(null)));
+      if (hash.isPresent())
+        index.mediaFileNamesByHash.putIfAbsent(hash.get(), exportedName);
+    }
+
+    Runnable copy = () -> exportFile(sourceFile, duplicateName, exportedName, hash);
+    if (isTransient.test(sourceFile))
+      copy.run();
+    else
+      pendingCopies.add(CompletableFuture.runAsync(copy, copyExecutor));
+    return exportedName;
+  }
+
+  /**
+   * Waits until all the files that have been put in this store are in the media
+   * directory, and then writes the index to disk.
+   *
+   * @throws java.util.concurrent.CompletionException if some file couldn't be exported
+   */
+  void close() {
+    try {
+      CompletableFuture.allOf(pendingCopies.toArray(new CompletableFuture[0])).join();
+    } finally {
+      pendingCopies.clear();
+      save();
+    }
+  }
+
+  /**
+   * Creates the given file in the media directory with the contents of the source file,
+   * using the cheapest available option:
+   * <ul>
+   * <li>A hard link to some other file in the media directory with the same contents</li>
+   * <li>A hard link to the source file, when it's in the same filesystem</li>
+   * <li>A copy of the source file, made by the OS when possible</li>
+   * </ul>
+   */
+  private void exportFile(Path sourceFile, Optional<String> duplicateName, String exportedName, Optional<String> hash) {
+    Path destinationFile = mediaDir.resolve(exportedName);
+    try {
+      boolean linked = (duplicateName.isPresent() && tryLink(mediaDir.resolve(duplicateName.get()), destinationFile))
+          || tryLink(sourceFile, destinationFile);
+      if (!linked)
+        transfer(sourceFile, destinationFile);
+      // The file is complete now, and its entry can be saved in the index
+      if (hash.isPresent())
+        synchronized (index) {
+          index.mediaFiles.put(exportedName, Entry.of(destinationFile, hash.get()));
+        }
+    } catch (RuntimeException e) {
+      // Forget the file to avoid having a wrong entry in the index
+      synchronized (index) {
+        index.mediaFiles.remove(exportedName);
+      }
+      deleteQuietly(destinationFile);
+      throw e;
+    }
+  }
+
+  /**
+   * Writes the index to disk, keeping only the entries of complete files that still
+   * exist, and the entries of source files that haven't changed since they were hashed.
+   * <p>
+   * Source files of other forms exported to the same directory are kept even if they
+   * haven't been seen by this export, so that exporting them again is still cheap.
+   * <p>
+   * The index is written to a temporary file of its own, which then replaces the
+   * index atomically, so that processes writing the same index at the same time
+   * can't leave it corrupt.
+   * <p>
+   * Failing to write the index is not an error, since it can be rebuilt on any
+   * subsequent export.
+   */
+  private void save() {
+    if (!Files.exists(mediaDir))
+      return;
+    Path tempFile = null;
+    synchronized (index) {
+      try {
+        tempFile = Files.createTempFile(indexFile.getParent(), INDEX_FILE_NAME, ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, UTF_8)) {
+          writer.write(HEADER);
+          writer.newLine();
+          for (Map.Entry<String, Entry> e : index.mediaFiles.entrySet()) {
+            Path file = mediaDir.resolve(e.getKey());
+            if (e.getValue().hash != null && !e.getValue().isPending() && Files.exists(file))
+              writeLine(writer, MEDIA, e.getKey(), Entry.of(file, e.getValue().hash));
+          }
+          for (Map.Entry<String, Entry> e : index.sourceFiles.entrySet()) {
+            Path file = Paths.get(e.getKey());
+            if (Files.exists(file) && e.getValue().matches(file))
+              writeLine(writer, SOURCE, e.getKey(), e.getValue());
+          }
+        }
+        Files.move(tempFile, indexFile, REPLACE_EXISTING, ATOMIC_MOVE);
+      } catch (IOException e) {
+        log.warn("Can't write the media index", e);
+        if (tempFile != null)
+          deleteQuietly(tempFile);
+      }
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException ignored) {
+      // We have already failed
+    }
+  }
+
+  private static void writeLine(BufferedWriter writer, String kind, String key, Entry entry) throws IOException {
+    writer.write(String.join("\t", kind, key, String.valueOf(entry.size), String.valueOf(entry.lastModified), entry.hash));
+    writer.newLine();
+  }
+
+  private Optional<String> getSourceHash(Path sourceFile) {
+    String key = sourceFile.toAbsolutePath().toString();
+    Entry entry = index.sourceFiles.get(key);
+    if (entry != null && entry.matches(sourceFile))
+      return Optional.of(entry.hash);
+    Optional<String> hash = getMd5Hash(sourceFile);
+    hash.ifPresent(h -> index.sourceFiles.put(key, Entry.of(sourceFile, h)));
+    return hash;
+  }
+
+  private Optional<String> getMediaHash(String fileName) {
+    Entry entry = index.mediaFiles.get(fileName);
+    if (entry != null && entry.isPending())
+      return Optional.ofNullable(entry.hash);
+    Path file = mediaDir.resolve(fileName);
+    if (!Files.exists(file)) {
+      index.mediaFiles.remove(fileName);
+      return Optional.empty();
+    }
+    if (entry != null && entry.matches(file))
+      return Optional.of(entry.hash);
+    Optional<String> hash = getMd5Hash(file);
+    if (hash.isPresent()) {
+      index.mediaFiles.put(fileName, Entry.of(file, hash.get()));
+      index.mediaFileNamesByHash.put(hash.get(), fileName);
+    } else
+      index.mediaFiles.remove(fileName);
+    return hash;
+  }
+
+  /**
+   * Returns the name of a file in the media directory with the given hash.
+   */
+  private Optional<String> findByHash(String hash) {
+    return Optional.ofNullable(index.mediaFileNamesByHash.get(hash))
+        .filter(name -> Optional.of(hash).equals(getMediaHash(name)));
+  }
+
+  private boolean isTaken(String fileName) {
+    Entry entry = index.mediaFiles.get(fileName);
+    return (entry != null && entry.isPending()) || Files.exists(mediaDir.resolve(fileName));
+  }
+
+  private static boolean isNumberedNameOf(String name, String fileName) {
+    String namePart = stripFileExtension(fileName);
+    String extPart = getFileExtension(fileName).map(extension -> "." + extension).orElse("");
+    return name.startsWith(namePart + "-")
+        && name.endsWith(extPart)
+        && name.substring(namePart.length() + 1, name.length() - extPart.length()).matches("\\d+");
+  }
+
+  /**
+   * Returns the first numbered name of the given file name that is either free, or
+   * taken by a file with the given hash.
+   * <p>
+   * The last number used for each name is remembered to avoid probing the same
+   * names over and over again.
+   */
+  private String nextNumberedName(String fileName, Optional<String> hash) {
+    String namePart = stripFileExtension(fileName);
+    String extPart = getFileExtension(fileName).map(extension -> "." + extension).orElse("");
+    int sequenceSuffix = index.nextSuffixes.getOrDefault(fileName, 2);
+    String numberedName = String.format("%s-%d%s", namePart, sequenceSuffix, extPart);
+    while (isTaken(numberedName) && !(hash.isPresent() && hash.equals(getMediaHash(numberedName))))
+      numberedName = String.format("%s-%d%s", namePart, ++sequenceSuffix, extPart);
+    index.nextSuffixes.put(fileName, sequenceSuffix);
+    return numberedName;
+  }
+
+  private static boolean tryLink(Path existingFile, Path link) {
+    try {
+      Files.createLink(link, existingFile);
+      return true;
+    } catch (IOException | UnsupportedOperationException | SecurityException e) {
+      log.debug("Can't link {} to {}", link, existingFile, e);
+      return false;
+    }
+  }
+
+  private static void transfer(Path sourceFile, Path destinationFile) {
+    try (FileChannel source = FileChannel.open(sourceFile, READ);
+         FileChannel destination = FileChannel.open(destinationFile, CREATE_NEW, WRITE)) {
+      long size = source.size();
+      long position = 0;
+      while (position < size)
+        position += source.transferTo(position, size - position, destination);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * The entries of the index, which are shared by all the stores of the same media
+   * directory. The media file maps are guarded by this instance's lock.
+   */
+  private static class Index {
+    private final Map<String, Entry> mediaFiles;
+    private final Map<String, String> mediaFileNamesByHash = new HashMap<>();
+    private final Map<String, Integer> nextSuffixes = new HashMap<>();
+    private final Map<String, Entry> sourceFiles;
+
+    Index(Map<String, Entry> mediaFiles, Map<String, Entry> sourceFiles) {
+      this.mediaFiles = mediaFiles;
+      this.sourceFiles = sourceFiles;
+      mediaFiles.forEach((name, entry) -> mediaFileNamesByHash.put(entry.hash, name));
+    }
+  }
+
+  private static class Entry {
+    private final long size;
+    private final long lastModified;
+    private final String hash;
+
+    Entry(long size, long lastModified, String hash) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.hash = hash;
+    }
+
+    static Entry of(Path file, String hash) {
+      return new Entry(file.toFile().length(), file.toFile().lastModified(), hash);
+    }
+
+    /**
+     * Entry of a file that is being exported right now
+     */
+    static Entry pending(String hash) {
+      return new Entry(-1, -1, hash);
+    }
+
+    boolean isPending() {
+      return size == -1;
+    }
+
+    boolean matches(Path file) {
+      return size == file.toFile().length() && lastModified == file.toFile().lastModified();
+    }
+  }
+}
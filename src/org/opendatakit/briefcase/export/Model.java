@@ -37,9 +37,22 @@ import org.javarosa.core.model.instance.TreeElement;
 /**
  * This class represents a particular level in the model of a Form.
  * It can hold the root level model or any of its fields.
+ * <p>
+ * Instances of this class compile their children, FQN, data type and
+ * ancestor count the first time they're required, and then reuse them.
+ * Since children are compiled only once, a {@link Model} tree can be walked
+ * many times (e.g. once per exported submission) without allocating new
+ * objects or walking up to the root each time.
  */
 class Model {
   private final TreeElement model;
+  // All these members are not final because they're lazily evaluated
+  private volatile Model parent;
+  private volatile List<Model> children;
+  private volatile List<String> fqnNames;
+  private volatile String fqn;
+  private volatile DataType dataType;
+  private volatile Integer ancestorCount;
 
   /**
    * Main constructor for {@link Model} that takes a {@link TreeElement} as its root.
@@ -48,6 +61,11 @@ class Model {
     this.model = model;
   }
 
+  private Model(TreeElement model, Model parent) {
+    this.model = model;
+    this.parent = parent;
+  }
+
   /**
    * Iterates over the children of this instance and returns the flatmapped result of mapping
    * each child using the given mapper function.
@@ -87,7 +105,9 @@ class Model {
    * @return a @{link String} with the FQN of this {@link Model}
    */
   String fqn() {
-    return fqn(0);
+    if (fqn == null)
+      fqn = fqn(0);
+    return fqn;
   }
 
   /**
@@ -99,13 +119,7 @@ class Model {
    * @see Model#fqn()
    */
   String fqn(int shift) {
-    List<String> names = new ArrayList<>();
-    TreeElement current = model;
-    while (current.getParent() != null && current.getParent().getName() != null) {
-      names.add(current.getName());
-      current = (TreeElement) current.getParent();
-    }
-    Collections.reverse(names);
+    List<String> names = getFqnNames();
     return names
         .subList(shift, names.size())
         .stream()
@@ -120,7 +134,9 @@ class Model {
    * @return the {@link DataType} of this {@link Model} instance}
    */
   DataType getDataType() {
-    return DataType.from(model.getDataType());
+    if (dataType == null)
+      dataType = DataType.from(model.getDataType());
+    return dataType;
   }
 
   /**
@@ -194,7 +210,9 @@ class Model {
    * @return the {@link Model} parent of this {@link Model} instance
    */
   Model getParent() {
-    return new Model((TreeElement) model.getParent());
+    if (parent == null)
+      parent = new Model((TreeElement) model.getParent());
+    return parent;
   }
 
   /**
@@ -203,14 +221,17 @@ class Model {
    * @return an integer with the number of ancestors of this {@link Model} instance
    */
   int countAncestors() {
-    int count = 0;
-    Model ancestor = this;
-    while (ancestor.hasParent()) {
-      count++;
-      ancestor = ancestor.getParent();
+    if (ancestorCount == null) {
+      int count = 0;
+      Model ancestor = this;
+      while (ancestor.hasParent()) {
+        count++;
+        ancestor = ancestor.getParent();
+      }
+      // We remove one to account for the root node
+      ancestorCount = count - 1;
     }
-    // We remove one to account for the root node
-    return count - 1;
+    return ancestorCount;
   }
 
   /**
@@ -236,16 +257,36 @@ class Model {
   }
 
   private List<Model> children() {
+    if (children == null)
+      children = compileChildren();
+    return children;
+  }
+
+  private List<Model> compileChildren() {
     Set<String> fqns = new HashSet<>();
-    List<Model> children = new ArrayList<>(model.getNumChildren());
+    List<Model> compiledChildren = new ArrayList<>(model.getNumChildren());
     for (int i = 0, max = model.getNumChildren(); i < max; i++) {
-      Model child = new Model(model.getChildAt(i));
+      Model child = new Model(model.getChildAt(i), this);
       String fqn = child.fqn();
       if (!fqns.contains(fqn)) {
-        children.add(child);
+        compiledChildren.add(child);
         fqns.add(fqn);
       }
     }
-    return children;
+    return Collections.unmodifiableList(compiledChildren);
+  }
+
+  private List<String> getFqnNames() {
+    if (fqnNames == null) {
+      List<String> names = new ArrayList<>();
+      TreeElement current = model;
+      while (current.getParent() != null && current.getParent().getName() != null) {
+        names.add(current.getName());
+        current = (TreeElement) current.getParent();
+      }
+      Collections.reverse(names);
+      fqnNames = Collections.unmodifiableList(names);
+    }
+    return fqnNames;
   }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static java.util.stream.Collectors.toList;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.createDirectories;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.createTempDirectory;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.deleteRecursive;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.list;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.walk;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * This class manages the working directories where decrypted files are written
+ * while exporting a form.
+ * <p>
+ * Each thread gets its own scratch directory the first time it asks for one, and
+ * then reuses it for all the submissions it processes. Callers must
+ * {@link #release() release} their scratch directory once they're done with the
+ * submission, which wipes its contents. Closing this instance deletes all the
+ * scratch directories.
+ * <p>
+ * Nothing gets written to disk until a thread asks for a scratch directory.
+ */
+class ScratchSpace implements AutoCloseable {
+  private final Optional<Path> parentDir;
+  private final ThreadLocal<Path> dirs = new ThreadLocal<>();
+  private final AtomicInteger dirCount = new AtomicInteger(0);
+  private final LongAdder totalBytes = new LongAdder();
+  private final AtomicLong maxBytes = new AtomicLong(0);
+  private volatile Path root;
+
+  private ScratchSpace(Optional<Path> parentDir) {
+    this.parentDir = parentDir;
+  }
+
+  /**
+   * Factory of {@link ScratchSpace} instances that will keep their scratch
+   * directories inside the given directory, or the system's temporary directory
+   * if it's not present.
+   * <p>
+   * Pointing it to a RAM-backed filesystem, like /dev/shm, avoids writing
+   * decrypted files to disk at all.
+   */
+  static ScratchSpace in(Optional<Path> parentDir) {
+    return new ScratchSpace(parentDir);
+  }
+
+  /**
+   * Returns the empty scratch directory of the calling thread.
+   */
+  Path acquire() {
+    Path dir = dirs.get();
+    if (dir != null) {
+      // Wipe anything left behind by a submission that failed before releasing it
+      wipe(dir);
+      return dir;
+    }
+    Path newDir = createDirectories(getRoot().resolve("scratch-" + dirCount.incrementAndGet()));
+    dirs.set(newDir);
+    return newDir;
+  }
+
+  /**
+   * Wipes the contents of the scratch directory of the calling thread, if it has one.
+   */
+  void release() {
+    Path dir = dirs.get();
+    if (dir != null)
+      wipe(dir);
+  }
+
+  /**
+   * Returns true if the given file is in some scratch directory of this instance.
+   */
+  boolean contains(Path file) {
+    Path currentRoot = root;
+    return currentRoot != null && file.toAbsolutePath().startsWith(currentRoot.toAbsolutePath());
+  }
+
+  /**
+   * Returns the number of scratch directories that have been used.
+   */
+  int getDirCount() {
+    return dirCount.get();
+  }
+
+  /**
+   * Returns the number of bytes that have been written to scratch directories.
+   */
+  long getTotalBytes() {
+    return totalBytes.sum();
+  }
+
+  /**
+   * Returns the max number of bytes that a scratch directory has held at once.
+   */
+  long getMaxBytes() {
+    return maxBytes.get();
+  }
+
+  @Override
+  public void close() {
+    if (root != null && Files.exists(root))
+      deleteRecursive(root);
+  }
+
+  private synchronized Path getRoot() {
+    if (root == null)
+      root = parentDir
+          .map(dir -> createTempDirectory(createDirectories(dir), "briefcase-export-"))
+          .orElseGet(() -> createTempDirectory("briefcase-export-"));
+    return root;
+  }
+
+  private void wipe(Path dir) {
+    List<Path> children;
+    try (Stream<Path> stream = list(dir)) {
+      children = stream.collect(toList());
+    }
+    if (children.isEmpty())
+      return;
+    long bytes = 0;
+    for (Path child : children) {
+      try (Stream<Path> files = walk(child)) {
+        bytes += files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+      }
+      deleteRecursive(child);
+    }
+    totalBytes.add(bytes);
+    maxBytes.accumulateAndGet(bytes, Math::max);
+  }
+}
@@ -20,7 +20,6 @@ import static java.util.stream.Collectors.toList;
 import static org.opendatakit.briefcase.export.ValidationStatus.NOT_VALIDATED;
 import static org.opendatakit.briefcase.reused.UncheckedFiles.checksumOf;
 import static org.opendatakit.briefcase.reused.UncheckedFiles.stripFileExtension;
-import static org.opendatakit.briefcase.util.FileSystemUtils.getMd5Hash;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -99,21 +98,21 @@ class Submission {
    * <p>
    * This method is used to validate the cryptographic signature attached to encrypted forms.
    *
-   * @param originalSubmission the original, unencrypted {@link Submission} instance that was decrypted
-   *                           to get this {@link Submission} instance
+   * @param mediaDigests     the MD5 hashes of the decrypted contents of the media files attached
+   *                         to this submission, in the same order as their names are declared
+   * @param submissionDigest the MD5 hash of the decrypted contents of this submission
    * @return a {@link String} signature for this {@link Submission} instance
    */
-  String buildSignature(Submission originalSubmission) {
+  String buildSignature(List<String> mediaDigests, String submissionDigest) {
     List<String> signatureParts = new ArrayList<>();
     signatureParts.add(metaData.getFormId());
     metaData.getVersion().ifPresent(signatureParts::add);
     signatureParts.add(metaData.getBase64EncryptedKey().orElseThrow(() -> new ParsingException("Missing base64EncryptedKey element in encrypted form")));
-    signatureParts.add(metaData.getInstanceId().orElseGet(() -> "crc32:" + checksumOf(originalSubmission.path)));
-    for (String mediaName : metaData.getMediaNames()) {
-      Path decryptedFile = workingDir.resolve(stripFileExtension(mediaName));
-      signatureParts.add(decryptedFile.getFileName() + "::" + getMd5Hash(decryptedFile.toFile()));
-    }
-    signatureParts.add(originalSubmission.path.getFileName().toString() + "::" + getMd5Hash(path.toFile()));
+    signatureParts.add(metaData.getInstanceId().orElseGet(() -> "crc32:" + checksumOf(path)));
+    List<String> mediaNames = metaData.getMediaNames();
+    for (int i = 0; i < mediaNames.size(); i++)
+      signatureParts.add(stripFileExtension(mediaNames.get(i)) + "::" + mediaDigests.get(i));
+    signatureParts.add(path.getFileName().toString() + "::" + submissionDigest);
     return signatureParts.stream().collect(joining("\n")) + "\n";
   }
 
@@ -122,11 +121,11 @@ class Submission {
    * <p>
    * It will extract a new {@link XmlElement} root from the given {@link Document} document
    *
-   * @param path     new {@link Path} path value
-   * @param document a {@link Document} instance from which a new {@link XmlElement} root member will be taken
+   * @param workingDir new {@link Path} working directory value
+   * @param document   a {@link Document} instance from which a new {@link XmlElement} root member will be taken
    * @return a new {@link Submission} instance
    */
-  Submission copy(Path path, Document document) {
+  Submission copy(Path workingDir, Document document) {
     return new Submission(path, workingDir, XmlElement.of(document), metaData, validationStatus, cipherFactory, signature);
   }
 
@@ -148,9 +147,9 @@ class Submission {
    * <b>Warning</b>: This method has side-effects on {@link Submission#cipherFactory}. Ciphers must
    * be retrieved in a certain order to produce valid results.
    *
-   * @return a new {@link Cipher} instance
+   * @return the {@link Cipher} instance, ready to decrypt the next file
    * @throws BriefcaseException if no CipherFactory is present
-   * @see SubmissionParser#decrypt(Submission)
+   * @see SubmissionParser#decrypt(Submission, boolean, ScratchSpace)
    */
   Cipher getNextCipher() {
     return cipherFactory.map(CipherFactory::next).orElseThrow(() -> new BriefcaseException("No Cipher configured"));
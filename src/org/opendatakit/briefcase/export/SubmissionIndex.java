@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class represents an on-disk index of the submissions of a form, which holds
+ * the submission date of each submission, to avoid having to parse all the
+ * submission files on each export.
+ * <p>
+ * Each entry is validated against the size and last modification time of its
+ * submission file. Submissions without a valid entry (new ones, or ones that have
+ * been pulled again) are read again and their entries get updated.
+ */
+class SubmissionIndex {
+  private static final Logger log = LoggerFactory.getLogger(SubmissionIndex.class);
+  static final String FILE_NAME = "submissions.index";
+  private static final String HEADER = "# submission index v1";
+  private static final String NO_DATE = "-";
+
+  private final Path indexFile;
+  private final Map<String, Entry> entries;
+  private final Set<String> seenInstances = new HashSet<>();
+  private boolean dirty = false;
+
+  private SubmissionIndex(Path indexFile, Map<String, Entry> entries) {
+    this.indexFile = indexFile;
+    this.entries = entries;
+  }
+
+  /**
+   * Factory that loads the index stored in the given form directory.
+   * <p>
+   * If there's no index, or it can't be read, an empty index is returned.
+   *
+   * @param formDir the {@link Path} to the form's directory
+   * @return a new {@link SubmissionIndex} instance
+   */
+  static SubmissionIndex load(Path formDir) {
+    Path indexFile = formDir.resolve(FILE_NAME);
+    Map<String, Entry> entries = new HashMap<>();
+    if (Files.exists(indexFile)) {
+      try (BufferedReader reader = Files.newBufferedReader(indexFile, UTF_8)) {
+        if (HEADER.equals(reader.readLine())) {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            String[] parts = line.split("\t");
+            entries.put(parts[0], new Entry(
+                Long.parseLong(parts[1]),
+                Long.parseLong(parts[2]),
+                parts[3].equals(NO_DATE) ? Optional.empty() : Optional.of(OffsetDateTime.parse(parts[3]))
+            ));
+          }
+        }
+      } catch (IOException | RuntimeException e) {
+        log.warn("Can't read the submission index. It will be rebuilt", e);
+        entries.clear();
+      }
+    }
+    return new SubmissionIndex(indexFile, entries);
+  }
+
+  /**
+   * Returns the submission date of the given submission file.
+   * <p>
+   * If the index doesn't have a valid entry for this submission, the given reader
+   * is used to get its submission date, and the index gets updated.
+   *
+   * @param submissionFile the {@link Path} to the submission file
+   * @param dateReader     the {@link Function} that reads the submission date from a file
+   * @return the submission date, wrapped inside an {@link Optional} instance, or
+   *     {@link Optional#empty()} if the submission has no submission date
+   */
+  Optional<OffsetDateTime> getSubmissionDate(Path submissionFile, Function<Path, Optional<OffsetDateTime>> dateReader) {
+    String instance = submissionFile.getParent().getFileName().toString();
+    long size = submissionFile.toFile().length();
+    long lastModified = submissionFile.toFile().lastModified();
+    seenInstances.add(instance);
+
+    Entry entry = entries.get(instance);
+    if (entry != null && entry.size == size && entry.lastModified == lastModified)
+      return entry.submissionDate;
+
+    Optional<OffsetDateTime> submissionDate = dateReader.apply(submissionFile);
+    entries.put(instance, new Entry(size, lastModified, submissionDate));
+    dirty = true;
+    return submissionDate;
+  }
+
+  /**
+   * Writes the index to disk, if it has changed, keeping only the entries of those
+   * submissions that have been queried since it was loaded.
+   * <p>
+   * Failing to write the index is not an error, since it can be rebuilt on any
+   * subsequent export.
+   */
+  void save() {
+    if (entries.keySet().retainAll(seenInstances))
+      dirty = true;
+    if (!dirty)
+      return;
+
+    Path tempFile = indexFile.resolveSibling(FILE_NAME + ".tmp");
+    try {
+      try (BufferedWriter writer = Files.newBufferedWriter(tempFile, UTF_8)) {
+        writer.write(HEADER);
+        writer.newLine();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+          writer.write(String.join("\t",
+              e.getKey(),
+              String.valueOf(e.getValue().size),
+              String.valueOf(e.getValue().lastModified),
+              e.getValue().submissionDate.map(OffsetDateTime::toString).orElse(NO_DATE)
+          ));
+          writer.newLine();
+        }
+      }
+      Files.move(tempFile, indexFile, REPLACE_EXISTING, ATOMIC_MOVE);
+      dirty = false;
+    } catch (IOException e) {
+      log.warn("Can't write the submission index", e);
+    }
+  }
+
+  private static class Entry {
+    private final long size;
+    private final long lastModified;
+    private final Optional<OffsetDateTime> submissionDate;
+
+    Entry(long size, long lastModified, Optional<OffsetDateTime> submissionDate) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.submissionDate = submissionDate;
+    }
+  }
+}
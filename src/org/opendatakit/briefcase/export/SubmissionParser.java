@@ -15,14 +15,18 @@
  */
 package org.opendatakit.briefcase.export;
 
+import static java.util.Comparator.comparing;
 import static java.util.stream.Collectors.toList;
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
 import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
 import static org.apache.commons.codec.binary.Base64.decodeBase64;
-import static org.opendatakit.briefcase.export.CipherFactory.signatureDecrypter;
-import static org.opendatakit.briefcase.reused.UncheckedFiles.createTempDirectory;
+import static org.apache.commons.io.output.NullOutputStream.NULL_OUTPUT_STREAM;
 import static org.opendatakit.briefcase.reused.UncheckedFiles.list;
 import static org.opendatakit.briefcase.reused.UncheckedFiles.stripFileExtension;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -31,48 +35,55 @@ import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.security.PrivateKey;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.CipherInputStream;
-import javax.crypto.IllegalBlockSizeException;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import org.bushe.swing.event.EventBus;
-import org.kxml2.io.KXmlParser;
 import org.kxml2.kdom.Document;
+import org.kxml2.kdom.Element;
+import org.kxml2.kdom.Node;
 import org.opendatakit.briefcase.model.CryptoException;
 import org.opendatakit.briefcase.reused.BriefcaseException;
+import org.opendatakit.briefcase.reused.Md5;
 import org.opendatakit.briefcase.reused.OptionalProduct;
 import org.opendatakit.briefcase.reused.Pair;
 import org.opendatakit.briefcase.reused.UncheckedFiles;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xmlpull.v1.XmlPullParser;
-import org.xmlpull.v1.XmlPullParserException;
 
 /**
  * This class holds the main submission parsing code.
  */
 class SubmissionParser {
   private static final Logger log = LoggerFactory.getLogger(SubmissionParser.class);
+  private static final int BUFFER_SIZE = 8192;
   private static final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+  private static final XMLInputFactory submissionInputFactory = XMLInputFactory.newInstance();
+
+  static {
+    submissionInputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    submissionInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    submissionInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+  }
 
   /**
-   * Returns an sorted {@link List} of {@link Path} instances pointing to all the
-   * submissions of a form that belong to the given {@link DateRange}.
+   * Returns a {@link List} of {@link Path} instances pointing to all the
+   * submissions of a form that belong to the given {@link DateRange}, sorted
+   * by their submission date.
    * <p>
    * Each file gets briefly parsed to obtain their submission date and use it as
-   * the sorting criteria and for filtering.
+   * the sorting criteria and for filtering, unless the form's {@link SubmissionIndex}
+   * already holds it.
    *
    * @param formDef
    * @param dateRange a {@link DateRange} to filter submissions that are contained in it
@@ -83,21 +94,25 @@ class SubmissionParser {
       return Collections.emptyList();
     // TODO Migrate this code to Try<Pair<Path, Option<OffsetDate>>> to be able to filter failed parsing attempts
     List<Pair<Path, OffsetDateTime>> paths = new ArrayList<>();
+    SubmissionIndex index = SubmissionIndex.load(formDef.getFormDir());
     list(instancesDir)
         .filter(UncheckedFiles::isInstanceDir)
         .forEach(instanceDir -> {
           Path submissionFile = instanceDir.resolve("submission.xml");
           try {
-            Optional<OffsetDateTime> submissionDate = readSubmissionDate(submissionFile);
+            Optional<OffsetDateTime> submissionDate = index.getSubmissionDate(submissionFile, SubmissionParser::readSubmissionDate);
             paths.add(Pair.of(submissionFile, submissionDate.orElse(OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC))));
           } catch (Throwable t) {
             log.error("Can't read submission date", t);
             EventBus.publish(ExportEvent.failureSubmission(formDef, instanceDir.getFileName().toString(), t));
           }
         });
-    return paths.parallelStream()
+    index.save();
+    return paths.stream()
         // Filter out submissions outside the given date range
         .filter(pair -> dateRange.contains(pair.getRight()))
+        // Sort them by submission date to be able to write sorted outputs while we parse them
+        .sorted(comparing(Pair::getRight))
         .map(Pair::getLeft)
         .collect(toList());
   }
@@ -112,17 +127,20 @@ class SubmissionParser {
    * Returns an {@link Optional#empty()} otherwise.
    *
    * @param path        the {@link Path} to the submission file
+   * @param contents    the contents of the submission file
    * @param isEncrypted a {@link Boolean} indicating whether the form is encrypted or not.
-   * @param privateKey  the {@link PrivateKey} to be used to decrypt the submissions,
+   * @param exportMedia a {@link Boolean} indicating whether media files will be exported or not.
+   * @param scratchSpace the {@link ScratchSpace} where decrypted media files will be written
+   * @param decryptionContext the {@link DecryptionContext} to be used to decrypt the submissions,
    *                    wrapped inside an {@link Optional} when the form is encrypted, or
    *                    {@link Optional#empty()} otherwise
    * @return the {@link Submission} wrapped inside an {@link Optional} when it meets all the
    *     criteria, or {@link Optional#empty()} otherwise
-   * @see #decrypt(Submission)
+   * @see #decrypt(Submission, boolean, ScratchSpace)
    */
-  static Optional<Submission> parseSubmission(Path path, boolean isEncrypted, Optional<PrivateKey> privateKey) {
-    Path workingDir = isEncrypted ? createTempDirectory("briefcase") : path.getParent();
-    return parse(path).flatMap(document -> {
+  static Optional<Submission> parseSubmission(Path path, byte[] contents, boolean isEncrypted, boolean exportMedia, ScratchSpace scratchSpace, Optional<DecryptionContext> decryptionContext) {
+    Path workingDir = path.getParent();
+    return parse(new ByteArrayInputStream(contents)).flatMap(document -> {
       XmlElement root = XmlElement.of(document);
       SubmissionMetaData metaData = new SubmissionMetaData(root);
 
@@ -130,19 +148,19 @@ class SubmissionParser {
       Optional<CipherFactory> cipherFactory = OptionalProduct.all(
           metaData.getInstanceId(),
           metaData.getBase64EncryptedKey(),
-          privateKey
+          decryptionContext
       ).map(CipherFactory::from);
 
       // If all the needed parts are present, decrypt the signature
       Optional<byte[]> signature = OptionalProduct.all(
-          privateKey,
+          decryptionContext,
           metaData.getEncryptedSignature()
-      ).map((pk, es) -> decrypt(signatureDecrypter(pk), decodeBase64(es)));
+      ).map((dc, es) -> dc.decrypt(decodeBase64(es)));
 
       Submission submission = Submission.notValidated(path, workingDir, root, metaData, cipherFactory, signature);
       return isEncrypted
-          // If it's encrypted, validate the parsed contents with the attached signature
-          ? decrypt(submission).map(s -> s.copy(ValidationStatus.of(isValid(submission, s))))
+          // If it's encrypted, decrypt it and validate the parsed contents with the attached signature
+          ? decrypt(submission, exportMedia, scratchSpace)
           // Return the original submission otherwise
           : Optional.of(submission);
     });
@@ -183,75 +201,134 @@ class SubmissionParser {
   }
 
 
-  private static Optional<Submission> decrypt(Submission submission) {
+  /**
+   * Decrypts the given submission and its attached media files.
+   * <p>
+   * Each encrypted file is read only once. Its contents get digested while they're
+   * decrypted to validate the signature of the submission, and the submission's
+   * contents get parsed at the same time. Decrypted media files are written to
+   * a scratch directory only when they're going to be exported.
+   */
+  private static Optional<Submission> decrypt(Submission submission, boolean exportMedia, ScratchSpace scratchSpace) {
     List<Path> mediaPaths = submission.getMediaPaths();
 
     if (mediaPaths.size() != submission.countMedia())
       // We must skip this submission because some media file is missing
       return Optional.empty();
 
-    // Decrypt each attached media file in order
-    mediaPaths.forEach(path -> decryptFile(path, submission.getWorkingDir(), submission.getNextCipher()));
+    Path workingDir = exportMedia && !mediaPaths.isEmpty()
+        ? scratchSpace.acquire()
+        : submission.getWorkingDir();
 
-    // Decrypt the submission
-    Path decryptedSubmission = decryptFile(submission.getEncryptedFilePath(), submission.getWorkingDir(), submission.getNextCipher());
+    // Decrypt each attached media file in order
+    List<String> mediaDigests = new ArrayList<>();
+    for (Path mediaPath : mediaPaths)
+      mediaDigests.add(decryptFile(mediaPath, exportMedia ? Optional.of(workingDir) : Optional.empty(), submission.getNextCipher()));
 
-    // Parse the document and, if everything goes well, return a decripted copy of the submission
-    return parse(decryptedSubmission).map(document -> submission.copy(decryptedSubmission, document));
+    // Decrypt and parse the submission, and, if everything goes well, return a validated, decrypted copy of the submission
+    MessageDigest md = Md5.newDigest();
+    try (InputStream is = new DigestInputStream(new CipherInputStream(Files.newInputStream(submission.getEncryptedFilePath()), submission.getNextCipher()), md)) {
+      Optional<Document> document = parse(is);
+      // The parser can stop reading before the end of the stream, which we need to complete the digest
+      drain(is);
+      boolean isValid = submission.validate(computeDigest(submission.buildSignature(mediaDigests, Md5.toHex(md.digest()))));
+      return document.map(doc -> submission.copy(workingDir, doc).copy(ValidationStatus.of(isValid)));
+    } catch (IOException e) {
+      throw new CryptoException("Can't decrypt file", e);
+    }
   }
 
-  private static Path decryptFile(Path encFile, Path workingDir, Cipher cipher) {
-    Path decryptedFile = workingDir.resolve(stripFileExtension(encFile.getFileName().toString()));
-    try (InputStream is = Files.newInputStream(encFile);
-         CipherInputStream cis = new CipherInputStream(is, cipher);
-         OutputStream os = Files.newOutputStream(decryptedFile)
+  /**
+   * Decrypts the given file, writing its decrypted contents to the given directory, if present.
+   *
+   * @return the MD5 hash of the decrypted contents
+   */
+  private static String decryptFile(Path encFile, Optional<Path> workingDir, Cipher cipher) {
+    MessageDigest md = Md5.newDigest();
+    try (InputStream is = new DigestInputStream(new CipherInputStream(Files.newInputStream(encFile), cipher), md);
+         OutputStream os = workingDir.isPresent()
+             ? Files.newOutputStream(workingDir.get().resolve(stripFileExtension(encFile.getFileName().toString())))
+             : NULL_OUTPUT_STREAM
     ) {
-      byte[] buffer = new byte[2048];
-      int len = cis.read(buffer);
+      byte[] buffer = new byte[BUFFER_SIZE];
+      int len = is.read(buffer);
       while (len != -1) {
         os.write(buffer, 0, len);
-        len = cis.read(buffer);
+        len = is.read(buffer);
       }
-      os.flush();
-      return decryptedFile;
+      return Md5.toHex(md.digest());
     } catch (IOException e) {
       throw new CryptoException("Can't decrypt file", e);
     }
   }
 
+  private static void drain(InputStream is) throws IOException {
+    byte[] buffer = new byte[BUFFER_SIZE];
+    while (is.read(buffer) != -1) {
+      // Keep reading
+    }
+  }
+
+  /**
+   * Parses the given submission file into a {@link Document}.
+   * <p>
+   * The document is built while pulling events from a {@link XMLStreamReader}, which
+   * lets us coalesce adjacent text and skip the whitespace-only text nodes between tags
+   * that a DOM parser would keep. This way, each submission produces a smaller tree
+   * that is cheaper to build and to traverse while mapping its values.
+   */
   private static Optional<Document> parse(Path submission) {
-    try (InputStream is = Files.newInputStream(submission);
-         InputStreamReader isr = new InputStreamReader(is, "UTF-8")) {
-      Document tempDoc = new Document();
-      KXmlParser parser = new KXmlParser();
-      parser.setInput(isr);
-      parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, true);
-      tempDoc.parse(parser);
-      return Optional.of(tempDoc);
-    } catch (IOException | XmlPullParserException e) {
+    try (InputStream is = Files.newInputStream(submission)) {
+      return parse(is);
+    } catch (IOException e) {
       throw new BriefcaseException(e);
     }
   }
 
-  @SuppressWarnings("checkstyle:OverloadMethodsDeclarationOrder")
-  private static byte[] decrypt(Cipher cipher, byte[] message) {
+  /**
+   * @see SubmissionParser#parse(Path)
+   */
+  private static Optional<Document> parse(InputStream is) {
     try {
-      return cipher.doFinal(message);
-    } catch (IllegalBlockSizeException | BadPaddingException e) {
-      throw new CryptoException("Can't decrypt message");
+      XMLStreamReader reader = submissionInputFactory.createXMLStreamReader(is, "UTF-8");
+      try {
+        Document document = new Document();
+        Node current = document;
+        while (reader.hasNext()) {
+          int eventCode = reader.next();
+          if (eventCode == START_ELEMENT) {
+            Element element = document.createElement(nullToEmpty(reader.getNamespaceURI()), reader.getLocalName());
+            for (int i = 0, max = reader.getNamespaceCount(); i < max; i++)
+              element.setPrefix(reader.getNamespacePrefix(i), reader.getNamespaceURI(i));
+            for (int i = 0, max = reader.getAttributeCount(); i < max; i++)
+              element.setAttribute(nullToEmpty(reader.getAttributeNamespace(i)), reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+            current.addChild(Node.ELEMENT, element);
+            current = element;
+          } else if (eventCode == END_ELEMENT) {
+            current = ((Element) current).getParent();
+          } else if ((eventCode == CHARACTERS || eventCode == CDATA) && current != document && !reader.isWhiteSpace()) {
+            current.addChild(Node.TEXT, reader.getText());
+          }
+        }
+        return Optional.of(document);
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      throw new BriefcaseException(e);
     }
   }
 
-  private static boolean isValid(Submission submission, Submission decryptedSubmission) {
-    return submission.validate(computeDigest(decryptedSubmission.buildSignature(submission)));
+  private static String nullToEmpty(String value) {
+    return value == null ? "" : value;
   }
 
   private static byte[] computeDigest(String message) {
     try {
-      MessageDigest md = MessageDigest.getInstance("MD5");
+      MessageDigest md = Md5.newDigest();
       md.update(message.getBytes("UTF-8"));
       return md.digest();
-    } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+    } catch (UnsupportedEncodingException e) {
       throw new CryptoException("Can't compute digest", e);
     }
   }
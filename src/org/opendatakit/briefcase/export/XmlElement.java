@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.kxml2.kdom.Document;
@@ -39,6 +40,12 @@ import org.opendatakit.briefcase.reused.BriefcaseException;
  */
 public class XmlElement {
   private final Element element;
+  /**
+   * This index is lazily constructed
+   *
+   * @see #findElement(String)
+   */
+  private Map<String, XmlElement> descendantsByName;
 
   XmlElement(Element element) {
     this.element = element;
@@ -104,13 +111,18 @@ public class XmlElement {
   /**
    * Searches an element with a given name among this {@link XmlElement} instance's
    * descendants and returns it.
+   * <p>
+   * The first call to this method builds an index of this instance's descendants
+   * by name, which is used by any subsequent call.
    *
    * @param name {@link String} to be searched
    * @return The corresponding {@link XmlElement}, wrapped inside an {@link Optional} instance,
    *     or {@link Optional#empty()} if no element with the given name is found.
    */
   Optional<XmlElement> findElement(String name) {
-    return flatten().filter(e -> e.hasName(name)).findFirst();
+    if (descendantsByName == null)
+      descendantsByName = getNameIndex();
+    return Optional.ofNullable(descendantsByName.get(name));
   }
 
   /**
@@ -216,6 +228,18 @@ public class XmlElement {
     return maybeValue().isPresent();
   }
 
+  /**
+   * Builds and returns an index with the first element of each name found while
+   * traversing this {@link XmlElement} instance's descendants in document order.
+   * <p>
+   * Names are compared ignoring their case.
+   */
+  private Map<String, XmlElement> getNameIndex() {
+    Map<String, XmlElement> index = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    flatten().forEach(e -> index.putIfAbsent(e.getName(), e));
+    return index;
+  }
+
   private XmlElement getParent() {
     return new XmlElement((Element) element.getParent());
   }
@@ -46,6 +46,8 @@ public class BriefcasePreferences {
   private static final String BRIEFCASE_PROXY_HOST_PROPERTY = "briefcaseProxyHost";
   private static final String BRIEFCASE_PROXY_PORT_PROPERTY = "briefcaseProxyPort";
   private static final String BRIEFCASE_PARALLEL_PULLS_PROPERTY = "briefcaseParallelPulls";
+  private static final String BRIEFCASE_EXPORT_PARALLELISM_PROPERTY = "briefcaseExportParallelism";
+  private static final String BRIEFCASE_EXPORT_IO_THREADS_PROPERTY = "briefcaseExportIoThreads";
   public static final String BRIEFCASE_TRACKING_CONSENT_PROPERTY = "briefcaseTrackingConsent";
   private static final String BRIEFCASE_STORE_PASSWORDS_CONSENT_PROPERTY = "briefcaseStorePasswordsConsent";
   private static final String BRIEFCASE_UNIQUE_USER_ID_PROPERTY = "uniqueUserID";
@@ -203,6 +205,22 @@ public class BriefcasePreferences {
     return nullSafeGet(BRIEFCASE_PARALLEL_PULLS_PROPERTY).map(Boolean::parseBoolean);
   }
 
+  public void setExportParallelism(Integer parallelism) {
+    put(BRIEFCASE_EXPORT_PARALLELISM_PROPERTY, parallelism.toString());
+  }
+
+  public Optional<Integer> getExportParallelism() {
+    return nullSafeGet(BRIEFCASE_EXPORT_PARALLELISM_PROPERTY).map(Integer::parseInt);
+  }
+
+  public void setExportIoThreads(Integer ioThreads) {
+    put(BRIEFCASE_EXPORT_IO_THREADS_PROPERTY, ioThreads.toString());
+  }
+
+  public Optional<Integer> getExportIoThreads() {
+    return nullSafeGet(BRIEFCASE_EXPORT_IO_THREADS_PROPERTY).map(Integer::parseInt);
+  }
+
   public void setRememberPasswords(Boolean enabled) {
     put(BRIEFCASE_STORE_PASSWORDS_CONSENT_PROPERTY, enabled.toString());
     EventBus.publish(enabled ? new SavePasswordsConsentGiven() : new SavePasswordsConsentRevoked());
@@ -16,6 +16,7 @@
 package org.opendatakit.briefcase.operations;
 
 import static java.time.format.DateTimeFormatter.ISO_DATE_TIME;
+import static java.util.stream.Collectors.toList;
 import static org.opendatakit.briefcase.export.ExportForms.buildExportDateTimePrefix;
 import static org.opendatakit.briefcase.operations.Common.FORM_ID;
 import static org.opendatakit.briefcase.operations.Common.STORAGE_DIR;
@@ -25,8 +26,10 @@ import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import org.opendatakit.briefcase.export.ExportConfiguration;
+import org.opendatakit.briefcase.export.ExportScheduler;
 import org.opendatakit.briefcase.export.ExportToCsv;
 import org.opendatakit.briefcase.export.FormDefinition;
 import org.opendatakit.briefcase.model.BriefcaseFormDefinition;
@@ -41,13 +44,20 @@ import org.slf4j.LoggerFactory;
 public class Export {
   private static final Logger log = LoggerFactory.getLogger(Export.class);
   private static final Param<Void> EXPORT = Param.flag("e", "export", "Export a form");
+  private static final Param<Void> EXPORT_SEVERAL = Param.flag("es", "export_forms", "Export several forms");
+  private static final Param<List<String>> FORM_IDS = Param.arg("ids", "form_ids", "Comma separated list of form IDs (all forms if missing)", value -> Arrays.asList(value.split(",")));
+  private static final Param<Integer> EXPORT_PARALLELISM = Param.positiveInt("ep", "export_parallelism", "Max number of threads used to export forms");
+  private static final Param<Integer> EXPORT_IO_THREADS = Param.positiveInt("eio", "export_io_threads", "Max number of threads used to read submissions during export");
   private static final Param<Path> EXPORT_DIR = Param.arg("ed", "export_directory", "Export directory", Paths::get);
   private static final Param<String> FILE = Param.arg("f", "export_filename", "Filename for export operation");
   private static final Param<LocalDate> START = Param.localDate("start", "export_start_date", "Export start date (inclusive)");
   private static final Param<LocalDate> END = Param.localDate("end", "export_end_date", "Export end date (inclusive)");
   private static final Param<Void> EXCLUDE_MEDIA = Param.flag("em", "exclude_media_export", "Exclude media in export");
   private static final Param<Void> OVERWRITE = Param.flag("oc", "overwrite_csv_export", "Overwrite files during export");
+  private static final Param<Void> INCREMENTAL = Param.flag("ie", "incremental_export", "Only export new submissions since the last export");
   private static final Param<Path> PEM_FILE = Param.arg("pf", "pem_file", "PEM file for form decryption", Paths::get);
+  private static final Param<Integer> MAX_BUFFERED_SUBMISSIONS = Param.positiveInt("mbs", "max_buffered_submissions", "Max number of submissions held in memory during export");
+  private static final Param<Path> SCRATCH_DIR = Param.arg("scd", "scratch_directory", "Directory for temporary decrypted files during export, like /dev/shm", Paths::get);
 
   public static Operation EXPORT_FORM = Operation.of(
       EXPORT,
@@ -57,24 +67,43 @@ public class Export {
           args.get(FILE),
           !args.has(EXCLUDE_MEDIA),
           args.has(OVERWRITE),
+          args.has(INCREMENTAL),
           args.getOptional(START),
           args.getOptional(END),
-          args.getOptional(PEM_FILE)
+          args.getOptional(PEM_FILE),
+          args.getOptional(MAX_BUFFERED_SUBMISSIONS),
+          args.getOptional(SCRATCH_DIR)
       ),
       Arrays.asList(STORAGE_DIR, FORM_ID, FILE, EXPORT_DIR),
-      Arrays.asList(PEM_FILE, EXCLUDE_MEDIA, OVERWRITE, START, END)
+      Arrays.asList(PEM_FILE, EXCLUDE_MEDIA, OVERWRITE, INCREMENTAL, START, END, MAX_BUFFERED_SUBMISSIONS, SCRATCH_DIR)
   );
 
-  public static void export(String storageDir, String formid, Path exportDir, String baseFilename, boolean exportMedia, boolean overwriteFiles, Optional<LocalDate> startDate, Optional<LocalDate> endDate, Optional<Path> maybePemFile) {
+  public static Operation EXPORT_FORMS = Operation.of(
+      EXPORT_SEVERAL,
+      args -> exportForms(args.get(STORAGE_DIR),
+          args.getOptional(FORM_IDS),
+          args.get(EXPORT_DIR),
+          !args.has(EXCLUDE_MEDIA),
+          args.has(OVERWRITE),
+          args.has(INCREMENTAL),
+          args.getOptional(START),
+          args.getOptional(END),
+          args.getOptional(PEM_FILE),
+          args.getOptional(EXPORT_PARALLELISM),
+          args.getOptional(EXPORT_IO_THREADS),
+          args.getOptional(MAX_BUFFERED_SUBMISSIONS),
+          args.getOptional(SCRATCH_DIR)
+      ),
+      Arrays.asList(STORAGE_DIR, EXPORT_DIR),
+      Arrays.asList(FORM_IDS, PEM_FILE, EXCLUDE_MEDIA, OVERWRITE, INCREMENTAL, START, END, EXPORT_PARALLELISM, EXPORT_IO_THREADS, MAX_BUFFERED_SUBMISSIONS, SCRATCH_DIR)
+  );
+
+  public static void export(String storageDir, String formid, Path exportDir, String baseFilename, boolean exportMedia, boolean overwriteFiles, boolean incrementalExport, Optional<LocalDate> startDate, Optional<LocalDate> endDate, Optional<Path> maybePemFile, Optional<Integer> maxBufferedSubmissions, Optional<Path> scratchDir) {
     CliEventsCompanion.attach(log);
     Path briefcaseDir = Common.getOrCreateBriefcaseDir(storageDir);
-    FormCache formCache = FormCache.from(briefcaseDir);
-    formCache.update();
-    Optional<BriefcaseFormDefinition> maybeFormDefinition = formCache.getForms().stream()
-        .filter(form -> form.getFormId().equals(formid))
-        .findFirst();
-
-    BriefcaseFormDefinition formDefinition = maybeFormDefinition.orElseThrow(() -> new FormNotFoundException(formid));
+    // Only the requested form gets checked and parsed, instead of updating the whole cache
+    BriefcaseFormDefinition formDefinition = FormCache.from(briefcaseDir).getForm(formid)
+        .orElseThrow(() -> new FormNotFoundException(formid));
 
     System.out.println("Exporting form " + formDefinition.getFormName() + " (" + formDefinition.getFormId() + ") to: " + exportDir);
     ExportConfiguration configuration = new ExportConfiguration(
@@ -86,10 +115,63 @@ public class Export {
         Optional.empty(),
         Optional.empty(),
         Optional.of(overwriteFiles),
-        Optional.of(exportMedia)
+        Optional.of(exportMedia),
+        Optional.of(incrementalExport)
     );
+    maxBufferedSubmissions.ifPresent(configuration::setMaxBufferedSubmissions);
+    scratchDir.ifPresent(configuration::setScratchDir);
     ExportToCsv.export(FormDefinition.from(formDefinition), configuration);
 
     BriefcasePreferences.forClass(ExportPanel.class).put(buildExportDateTimePrefix(formDefinition.getFormId()), LocalDateTime.now().format(ISO_DATE_TIME));
   }
+
+  /**
+   * Exports several forms at once, using a shared pool of threads. Output files
+   * are named after each form.
+   */
+  public static void exportForms(String storageDir, Optional<List<String>> formIds, Path exportDir, boolean exportMedia, boolean overwriteFiles, boolean incrementalExport, Optional<LocalDate> startDate, Optional<LocalDate> endDate, Optional<Path> maybePemFile, Optional<Integer> parallelism, Optional<Integer> ioThreads, Optional<Integer> maxBufferedSubmissions, Optional<Path> scratchDir) {
+    CliEventsCompanion.attach(log);
+    Path briefcaseDir = Common.getOrCreateBriefcaseDir(storageDir);
+    FormCache formCache = FormCache.from(briefcaseDir);
+    List<BriefcaseFormDefinition> formDefinitions;
+    if (formIds.isPresent()) {
+      formDefinitions = formIds.get().stream()
+          .distinct()
+          .map(formId -> formCache.getForm(formId).orElseThrow(() -> new FormNotFoundException(formId)))
+          .collect(toList());
+    } else {
+      formCache.update();
+      formDefinitions = formCache.getForms();
+    }
+
+    BriefcasePreferences appPreferences = BriefcasePreferences.appScoped();
+    ExportScheduler scheduler = new ExportScheduler(
+        parallelism.orElse(appPreferences.getExportParallelism().orElse(ExportScheduler.DEFAULT_PARALLELISM)),
+        ioThreads.orElse(appPreferences.getExportIoThreads().orElse(ExportScheduler.DEFAULT_IO_THREADS))
+    );
+    for (BriefcaseFormDefinition formDefinition : formDefinitions) {
+      System.out.println("Exporting form " + formDefinition.getFormName() + " (" + formDefinition.getFormId() + ") to: " + exportDir);
+      ExportConfiguration configuration = new ExportConfiguration(
+          Optional.empty(),
+          Optional.of(exportDir),
+          maybePemFile,
+          startDate,
+          endDate,
+          Optional.empty(),
+          Optional.empty(),
+          Optional.of(overwriteFiles),
+          Optional.of(exportMedia),
+          Optional.of(incrementalExport)
+      );
+      maxBufferedSubmissions.ifPresent(configuration::setMaxBufferedSubmissions);
+      scratchDir.ifPresent(configuration::setScratchDir);
+      scheduler.schedule(FormDefinition.from(formDefinition), configuration);
+    }
+    List<FormDefinition> exportedForms = scheduler.run();
+
+    // Only the forms that have been exported without errors get their export date updated
+    BriefcasePreferences exportPreferences = BriefcasePreferences.forClass(ExportPanel.class);
+    String exportDateTime = LocalDateTime.now().format(ISO_DATE_TIME);
+    exportedForms.forEach(formDef -> exportPreferences.put(buildExportDateTimePrefix(formDef.getFormId()), exportDateTime));
+  }
 }
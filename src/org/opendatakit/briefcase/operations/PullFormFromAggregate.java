@@ -25,7 +25,6 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Optional;
 import org.bushe.swing.event.EventBus;
 import org.opendatakit.briefcase.model.FormStatus;
@@ -36,6 +35,7 @@ import org.opendatakit.briefcase.reused.http.Credentials;
 import org.opendatakit.briefcase.reused.http.Response;
 import org.opendatakit.briefcase.util.FormCache;
 import org.opendatakit.briefcase.util.RetrieveAvailableFormsFromServer;
+import org.opendatakit.briefcase.util.ServerFetcher;
 import org.opendatakit.briefcase.util.TransferFromServer;
 import org.opendatakit.common.cli.Operation;
 import org.opendatakit.common.cli.Param;
@@ -47,6 +47,8 @@ public class PullFormFromAggregate {
   public static final Param<Void> DEPRECATED_PULL_AGGREGATE = Param.flag("pa", "Pull form from an Aggregate instance");
   private static final Param<Void> PULL_AGGREGATE = Param.flag("plla", "pull_aggregate", "Pull form from an Aggregate instance");
   private static final Param<Void> PULL_IN_PARALLEL = Param.flag("pp", "parallel_pull", "Pull submissions in parallel");
+  private static final Param<Void> PULL_SINCE_LAST = Param.flag("sl", "since_last_pull", "Only pull submissions received since the last complete pull");
+  private static final Param<Integer> PULL_PAGE_SIZE = Param.positiveInt("pps", "pull_page_size", "Number of submissions listed per request to Aggregate");
 
   public static Operation PULL_FORM_FROM_AGGREGATE = Operation.of(
       PULL_AGGREGATE,
@@ -56,13 +58,15 @@ public class PullFormFromAggregate {
           args.get(ODK_USERNAME),
           args.get(ODK_PASSWORD),
           args.get(AGGREGATE_SERVER),
-          args.has(PULL_IN_PARALLEL)
+          args.has(PULL_IN_PARALLEL),
+          args.getOptional(PULL_PAGE_SIZE),
+          args.has(PULL_SINCE_LAST)
       ),
       Arrays.asList(STORAGE_DIR, FORM_ID, ODK_USERNAME, ODK_PASSWORD, AGGREGATE_SERVER),
-      Collections.singletonList(PULL_IN_PARALLEL)
+      Arrays.asList(PULL_IN_PARALLEL, PULL_PAGE_SIZE, PULL_SINCE_LAST)
   );
 
-  public static void pullFormFromAggregate(String storageDir, String formid, String username, String password, String server, boolean pullInParallel) {
+  public static void pullFormFromAggregate(String storageDir, String formid, String username, String password, String server, boolean pullInParallel, Optional<Integer> pageSize, boolean sinceLastPull) {
     CliEventsCompanion.attach(log);
     Path briefcaseDir = Common.getOrCreateBriefcaseDir(storageDir);
     FormCache formCache = FormCache.from(briefcaseDir);
@@ -97,7 +101,7 @@ public class PullFormFromAggregate {
 
       FormStatus form = maybeForm.get();
       EventBus.publish(new StartPullEvent(form));
-      TransferFromServer.pull(remoteServer.asServerConnectionInfo(), briefcaseDir, pullInParallel, form);
+      TransferFromServer.pull(remoteServer.asServerConnectionInfo(), briefcaseDir, pullInParallel, pageSize.orElse(ServerFetcher.DEFAULT_PAGE_SIZE), sinceLastPull, form);
     }
   }
 
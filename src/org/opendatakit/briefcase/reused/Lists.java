@@ -17,6 +17,7 @@ package org.opendatakit.briefcase.reused;
 
 import static java.util.stream.Collectors.toList;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -51,4 +52,21 @@ public class Lists {
   public static <T> Stream<T> prepend(T value, Stream<T> right) {
     return Stream.of(Stream.of(value), right).flatMap(i -> i);
   }
+
+  /**
+   * Splits the given {@link List} into consecutive sublists of the given size. The last
+   * sublist can be smaller than the rest.
+   * <p>
+   * Sublists are views of the given {@link List}, which means that no element gets copied.
+   *
+   * @return a {@link List} of {@link List} views
+   */
+  public static <T> List<List<T>> partition(List<T> list, int size) {
+    if (size < 1)
+      throw new IllegalArgumentException("The size of the partitions must be greater than zero");
+    List<List<T>> partitions = new ArrayList<>();
+    for (int from = 0, total = list.size(); from < total; from += size)
+      partitions.add(list.subList(from, Math.min(from + size, total)));
+    return partitions;
+  }
 }
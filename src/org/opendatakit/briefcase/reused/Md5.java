@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.reused;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * This class computes the MD5 hashes Briefcase uses to compare files, like media
+ * files and form definitions, and to validate encrypted submissions.
+ * <p>
+ * Hashes are represented with 32 lowercase hexadecimal digits.
+ */
+public final class Md5 {
+  static final int BUFFER_SIZE = 256 * 1024;
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+  // Each thread reuses its buffer, which lets files go from the OS straight into native memory
+  private static final ThreadLocal<ByteBuffer> BUFFERS = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+  private Md5() {
+  }
+
+  /**
+   * Returns a new {@link MessageDigest} instance for the MD5 algorithm.
+   */
+  public static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support MD5
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns the MD5 hash of the contents of the given file, which can be of any size.
+   *
+   * @throws UncheckedIOException if the file can't be read
+   */
+  public static String hash(Path file) {
+    MessageDigest md = newDigest();
+    ByteBuffer buffer = BUFFERS.get();
+    try (FileChannel channel = FileChannel.open(file, READ)) {
+      buffer.clear();
+      while (channel.read(buffer) != -1) {
+        buffer.flip();
+        md.update(buffer);
+        buffer.clear();
+      }
+      return toHex(md.digest());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns the MD5 hash of the given bytes.
+   */
+  public static String hash(byte[] bytes) {
+    return toHex(newDigest().digest(bytes));
+  }
+
+  /**
+   * Returns the hexadecimal representation of the given digest, padded with
+   * zeroes to two digits per byte.
+   */
+  public static String toHex(byte[] digest) {
+    char[] chars = new char[digest.length * 2];
+    for (int i = 0; i < digest.length; i++) {
+      chars[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+      chars[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xF];
+    }
+    return new String(chars);
+  }
+}
@@ -17,14 +17,13 @@
 package org.opendatakit.briefcase.reused;
 
 import java.io.BufferedReader;
-import java.io.FileNotFoundException;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
-import java.math.BigInteger;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -35,8 +34,6 @@ import java.nio.file.LinkOption;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.attribute.FileAttribute;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.Comparator;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -156,57 +153,11 @@ public class UncheckedFiles {
 
   public static Optional<String> getMd5Hash(Path file) {
     try {
-      // CTS (6/15/2010) : stream file through digest instead of handing
-      // it the
-      // byte[]
-      MessageDigest md = MessageDigest.getInstance("MD5");
-      int chunkSize = 256;
-
-      byte[] chunk = new byte[chunkSize];
-
-      // Get the size of the file
-      long lLength = Files.size(file);
-
-      if (lLength > Integer.MAX_VALUE) {
-        log.error("File is too large");
-        return Optional.empty();
-      }
-
-      int length = (int) lLength;
-
-      InputStream is = Files.newInputStream(file);
-
-      int l = 0;
-      for (l = 0; l + chunkSize < length; l += chunkSize) {
-        is.read(chunk, 0, chunkSize);
-        md.update(chunk, 0, chunkSize);
-      }
-
-      int remaining = length - l;
-      if (remaining > 0) {
-        is.read(chunk, 0, remaining);
-        md.update(chunk, 0, remaining);
-      }
-      byte[] messageDigest = md.digest();
-
-      BigInteger number = new BigInteger(1, messageDigest);
-      String md5 = number.toString(16);
-      while (md5.length() < 32)
-        md5 = "0" + md5;
-      is.close();
-      return Optional.of(md5);
-
-    } catch (NoSuchAlgorithmException e) {
-      log.error("MD5 calculation failed", e);
-      return Optional.empty();
-    } catch (FileNotFoundException e) {
-      log.error("No File", e);
-      return Optional.empty();
-    } catch (IOException e) {
+      return Optional.of(Md5.hash(file));
+    } catch (UncheckedIOException e) {
       log.error("Problem reading from file", e);
       return Optional.empty();
     }
-
   }
 
   public static String stripFileExtension(String fileName) {
@@ -278,6 +229,14 @@ public class UncheckedFiles {
     }
   }
 
+  public static BufferedWriter newBufferedWriter(Path path, OpenOption... options) {
+    try {
+      return Files.newBufferedWriter(path, options);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   public static OutputStreamWriter newOutputStreamWriter(Path path, OpenOption... options) {
     try {
       return new OutputStreamWriter(Files.newOutputStream(path, options));
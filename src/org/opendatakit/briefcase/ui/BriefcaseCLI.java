@@ -304,7 +304,7 @@ public class BriefcaseCLI {
         importODK(storageDir, Paths.get(odkDir));
 
       if (odkDir == null && server != null)
-        pullFormFromAggregate(storageDir, formid, username, password, server, false);
+        pullFormFromAggregate(storageDir, formid, username, password, server, false, Optional.empty(), false);
 
       if (exportPath != null)
         export(
@@ -314,9 +314,12 @@ public class BriefcaseCLI {
             fileName,
             exportMedia,
             overwrite,
+            false,
             Optional.ofNullable(startDateString).map(s -> LocalDate.parse(s.replaceAll("/", "-"))),
             Optional.ofNullable(endDateString).map(s -> LocalDate.parse(s.replaceAll("/", "-"))),
-            Optional.ofNullable(pemKeyFile).map(Paths::get)
+            Optional.ofNullable(pemKeyFile).map(Paths::get),
+            Optional.empty(),
+            Optional.empty()
         );
     } catch (BriefcaseException e) {
       System.err.println("Error: " + e.getMessage());
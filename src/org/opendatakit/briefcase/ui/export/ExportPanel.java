@@ -31,7 +31,7 @@ import org.bushe.swing.event.annotation.EventSubscriber;
 import org.opendatakit.briefcase.export.ExportConfiguration;
 import org.opendatakit.briefcase.export.ExportEvent;
 import org.opendatakit.briefcase.export.ExportForms;
-import org.opendatakit.briefcase.export.ExportToCsv;
+import org.opendatakit.briefcase.export.ExportScheduler;
 import org.opendatakit.briefcase.export.FormDefinition;
 import org.opendatakit.briefcase.model.BriefcaseFormDefinition;
 import org.opendatakit.briefcase.model.BriefcasePreferences;
@@ -182,23 +182,24 @@ public class ExportPanel {
 
   private void export() {
     try {
-      forms.getSelectedForms()
-          .parallelStream()
-          .peek(FormStatus::clearStatusHistory)
-          .forEach(form -> {
-            String formId = form.getFormDefinition().getFormId();
-            ExportConfiguration configuration = forms.getConfiguration(formId);
-            if (configuration.resolvePullBefore())
-              forms.getTransferSettings(formId).ifPresent(sci -> NewTransferAction.transferServerToBriefcase(
-                  sci,
-                  new TerminationFuture(),
-                  Collections.singletonList(form),
-                  appPreferences.getBriefcaseDir().orElseThrow(BriefcaseException::new),
-                  appPreferences.getPullInParallel().orElse(false)
-              ));
-            BriefcaseFormDefinition formDefinition = (BriefcaseFormDefinition) form.getFormDefinition();
-            ExportToCsv.export(FormDefinition.from(formDefinition), configuration);
-          });
+      ExportScheduler scheduler = ExportScheduler.from(appPreferences);
+      forms.getSelectedForms().forEach(form -> {
+        form.clearStatusHistory();
+        String formId = form.getFormDefinition().getFormId();
+        ExportConfiguration configuration = forms.getConfiguration(formId);
+        BriefcaseFormDefinition formDefinition = (BriefcaseFormDefinition) form.getFormDefinition();
+        scheduler.schedule(FormDefinition.from(formDefinition), configuration, () -> {
+          if (configuration.resolvePullBefore())
+            forms.getTransferSettings(formId).ifPresent(sci -> NewTransferAction.transferServerToBriefcase(
+                sci,
+                new TerminationFuture(),
+                Collections.singletonList(form),
+                appPreferences.getBriefcaseDir().orElseThrow(BriefcaseException::new),
+                appPreferences.getPullInParallel().orElse(false)
+            ));
+        });
+      });
+      scheduler.run();
     } catch (Throwable t) {
       log.error("Error while exporting forms", t);
       showErrorDialog(getForm().getContainer(), "Unexpected error. See logs", "Export errors");
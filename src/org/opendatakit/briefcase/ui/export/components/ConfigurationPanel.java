@@ -37,6 +37,7 @@ public class ConfigurationPanel {
     configuration.ifPullBeforeOverridePresent(form::setPullBeforeOverride);
     configuration.ifOverwriteExistingFilesPresent(form::setOverwriteExistingFiles);
     form.setExportMedia(configuration.getExportMedia().orElse(true));
+    configuration.ifIncrementalExportPresent(form::setIncrementalExport);
 
     form.onSelectExportDir(path -> {
       configuration.setExportDir(path);
@@ -70,6 +71,10 @@ public class ConfigurationPanel {
       configuration.setExportMedia(exportMedia);
       triggerOnChange();
     });
+    form.onChangeIncrementalExport(incrementalExport -> {
+      configuration.setIncrementalExport(incrementalExport);
+      triggerOnChange();
+    });
   }
 
   public static ConfigurationPanel overridePanel(ExportConfiguration initialConfiguration, boolean savePasswordsConsent, boolean hasTransferSettings) {
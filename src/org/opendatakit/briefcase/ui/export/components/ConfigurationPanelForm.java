@@ -76,6 +76,7 @@ public class ConfigurationPanelForm extends JComponent {
   JLabel pullBeforeOverrideLabel;
   private JCheckBox overwriteFilesField;
   private JCheckBox exportMediaField;
+  private JCheckBox incrementalExportField;
   private final List<Consumer<Path>> onSelectExportDirCallbacks = new ArrayList<>();
   private final List<Consumer<Path>> onSelectPemFileCallbacks = new ArrayList<>();
   private final List<Consumer<LocalDate>> onSelectStartDateCallbacks = new ArrayList<>();
@@ -84,6 +85,7 @@ public class ConfigurationPanelForm extends JComponent {
   private final List<Consumer<PullBeforeOverrideOption>> onChangePullBeforeOverrideCallbacks = new ArrayList<>();
   private final List<Consumer<Boolean>> onChangeOverwriteExistingFilesCallbacks = new ArrayList<>();
   private final List<Consumer<Boolean>> onChangeExportMediaCallbacks = new ArrayList<>();
+  private final List<Consumer<Boolean>> onChangeIncrementalExportCallbacks = new ArrayList<>();
   private final ConfigurationPanelMode mode;
   private boolean uiLocked = false;
 
@@ -132,6 +134,7 @@ public class ConfigurationPanelForm extends JComponent {
         triggerOverwriteExistingFiles();
     });
     exportMediaField.addActionListener(__ -> triggerChangeExportMedia());
+    incrementalExportField.addActionListener(__ -> triggerChangeIncrementalExport());
   }
 
   public static ConfigurationPanelForm overridePanel(boolean savePasswordsConsent, boolean hasTransferSettings) {
@@ -165,6 +168,7 @@ public class ConfigurationPanelForm extends JComponent {
     pullBeforeHintPanel.setEnabled(enabled);
     pullBeforeOverrideLabel.setEnabled(enabled);
     overwriteFilesField.setEnabled(enabled);
+    incrementalExportField.setEnabled(enabled);
   }
 
   public void setExportDir(Path path) {
@@ -225,6 +229,10 @@ public class ConfigurationPanelForm extends JComponent {
     exportMediaField.setSelected(value);
   }
 
+  void setIncrementalExport(boolean value) {
+    incrementalExportField.setSelected(value);
+  }
+
   void onSelectExportDir(Consumer<Path> callback) {
     onSelectExportDirCallbacks.add(callback);
   }
@@ -257,6 +265,10 @@ public class ConfigurationPanelForm extends JComponent {
     onChangeExportMediaCallbacks.add(callback);
   }
 
+  void onChangeIncrementalExport(Consumer<Boolean> callback) {
+    onChangeIncrementalExportCallbacks.add(callback);
+  }
+
   void changeMode(boolean savePasswordsConsent) {
     mode.setSavePasswordsConsent(savePasswordsConsent);
     mode.decorate(pullBeforeField, pullBeforeOverrideLabel, pullBeforeOverrideField, pullBeforeHintPanel, uiLocked);
@@ -319,6 +331,10 @@ public class ConfigurationPanelForm extends JComponent {
     onChangeExportMediaCallbacks.forEach(callback -> callback.accept(exportMediaField.isSelected()));
   }
 
+  private void triggerChangeIncrementalExport() {
+    onChangeIncrementalExportCallbacks.forEach(callback -> callback.accept(incrementalExportField.isSelected()));
+  }
+
   private boolean confirmOverwriteFiles() {
     if (showConfirmDialog(this, "Overwrite existing files?", "", YES_NO_OPTION, PLAIN_MESSAGE) == YES_OPTION)
       return true;
@@ -515,6 +531,13 @@ public class ConfigurationPanelForm extends JComponent {
     gbc.gridy = 5;
     gbc.anchor = GridBagConstraints.WEST;
     container.add(exportMediaField, gbc);
+    incrementalExportField = new JCheckBox();
+    incrementalExportField.setText("Only export new submissions");
+    gbc = new GridBagConstraints();
+    gbc.gridx = 2;
+    gbc.gridy = 11;
+    gbc.anchor = GridBagConstraints.WEST;
+    container.add(incrementalExportField, gbc);
   }
 
   /**
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class adapts how many downloads can run at the same time to what the
+ * server can take, following an additive increase, multiplicative decrease
+ * (AIMD) strategy.
+ * <p>
+ * The limit grows by one after a full round of successful downloads, as long
+ * as their latency stays under twice the best latency seen so far. It halves
+ * when a download fails, but only once for all the downloads that were already
+ * running at that moment.
+ */
+class ConcurrencyLimit {
+  private static final int LATENCY_TOLERANCE = 2;
+  // Keeps very fast responses from being taken as latency spikes because of jitter
+  private static final long LATENCY_SLACK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+  private final int minLimit;
+  private final int maxLimit;
+  private int limit;
+  private int inFlight = 0;
+  private int successesSinceLastChange = 0;
+  private long minLatencyNanos = Long.MAX_VALUE;
+  private long lastDecreaseNanos = Long.MIN_VALUE;
+
+  ConcurrencyLimit(int minLimit, int initialLimit, int maxLimit) {
+    if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit)
+      throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = initialLimit;
+  }
+
+  /**
+   * Blocks until a download can start, and returns its start time, which must
+   * be passed back to {@link #onSuccess(long)} or {@link #onFailure(long)}.
+   */
+  synchronized long acquire() throws InterruptedException {
+    while (inFlight >= limit)
+      wait();
+    inFlight++;
+    return System.nanoTime();
+  }
+
+  synchronized void onSuccess(long startNanos) {
+    long latencyNanos = System.nanoTime() - startNanos;
+    minLatencyNanos = Math.min(minLatencyNanos, latencyNanos);
+    if (latencyNanos <= minLatencyNanos * LATENCY_TOLERANCE + LATENCY_SLACK_NANOS && ++successesSinceLastChange >= limit) {
+      limit = Math.min(maxLimit, limit + 1);
+      successesSinceLastChange = 0;
+    }
+    release();
+  }
+
+  synchronized void onFailure(long startNanos) {
+    if (startNanos >= lastDecreaseNanos) {
+      limit = Math.max(minLimit, limit / 2);
+      successesSinceLastChange = 0;
+      lastDecreaseNanos = System.nanoTime();
+    }
+    release();
+  }
+
+  synchronized int getLimit() {
+    return limit;
+  }
+
+  private void release() {
+    inFlight--;
+    notifyAll();
+  }
+}
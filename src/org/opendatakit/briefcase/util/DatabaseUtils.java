@@ -16,6 +16,7 @@
 
 package org.opendatakit.briefcase.util;
 
+import static java.util.stream.Collectors.joining;
 import static org.opendatakit.briefcase.util.FileSystemUtils.INSTANCE_DIR;
 import static org.opendatakit.briefcase.util.FileSystemUtils.SMALLSQL_JDBC_PREFIX;
 import static org.opendatakit.briefcase.util.FileSystemUtils.getFormDatabaseUrl;
@@ -29,6 +30,11 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import org.opendatakit.briefcase.model.FileSystemException;
@@ -49,6 +55,9 @@ public class DatabaseUtils {
   private static final String ASSERT_SQL = "SELECT instanceId, directory FROM recorded_instance limit 1";
   private static final String SELECT_ALL_SQL = "SELECT instanceId, directory FROM recorded_instance";
   private static final String SELECT_DIR_SQL = "SELECT directory FROM recorded_instance WHERE instanceId = ?";
+  private static final String SELECT_DIRS_SQL = "SELECT instanceId, directory FROM recorded_instance WHERE instanceId IN ";
+  // Each query scans the whole table, so it pays off to ask for many instances at once
+  private static final int MAX_INSTANCES_PER_QUERY = 1000;
   private static final String INSERT_DML = "INSERT INTO recorded_instance (instanceId, directory) VALUES(?,?)";
   private static final String DELETE_DML = "DELETE FROM recorded_instance WHERE instanceId = ?";
   private static final String RELATIVE_DML = "UPDATE recorded_instance set directory = regexp_replace(directory,'.*(" + INSTANCE_DIR + ")','$1')";
@@ -199,6 +208,37 @@ public class DatabaseUtils {
     }
   }
 
+  // ask which of the given recorded instances we have in this briefcase,
+  // with one query per batch of instanceIds instead of one per instance.
+  // instances we don't have are not included in the returned map.
+  public synchronized Map<String, File> getRecordedInstances(Collection<String> instanceIds) {
+    Map<String, File> recordedInstances = new HashMap<>();
+    List<String> pendingIds = new ArrayList<>(instanceIds);
+    try {
+      assertRecordedInstanceTable();
+      for (int from = 0; from < pendingIds.size(); from += MAX_INSTANCES_PER_QUERY) {
+        List<String> batch = pendingIds.subList(from, Math.min(pendingIds.size(), from + MAX_INSTANCES_PER_QUERY));
+        String sql = SELECT_DIRS_SQL + batch.stream().map(__ -> "?").collect(joining(",", "(", ")"));
+        try (PreparedStatement query = connection.prepareStatement(sql)) {
+          for (int i = 0; i < batch.size(); i++)
+            query.setString(i + 1, batch.get(i));
+          try (ResultSet values = query.executeQuery()) {
+            while (values.next()) {
+              File f = new File(formDir, values.getString(2));
+              if (f.exists() && f.isDirectory())
+                recordedInstances.put(values.getString(1), f);
+            }
+          }
+        }
+      }
+    } catch (SQLException e) {
+      if (log.isDebugEnabled()) {
+        log.debug("failed to find recorded instances", e);
+      }
+    }
+    return recordedInstances;
+  }
+
   public synchronized void assertRecordedInstanceDirectory(String instanceId, File dir) {
     forgetRecordedInstance(instanceId);
     putRecordedInstanceDirectory(instanceId, dir);
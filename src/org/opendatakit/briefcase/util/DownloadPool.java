@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.util;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class holds a bounded pool of download threads that is shared by all
+ * the forms of a pull.
+ * <p>
+ * Each form submits its downloads through its own {@link Lane}, which limits
+ * how many of them can be queued or running at the same time. This way, the
+ * downloads of all the forms get interleaved, and forms with lots of
+ * submissions don't keep the rest waiting.
+ * <p>
+ * How many of the pool's threads can download at the same time is adapted to
+ * the server's responses by a {@link ConcurrencyLimit}.
+ */
+class DownloadPool implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(DownloadPool.class);
+  private static final int INITIAL_CONCURRENCY = 4;
+  private final int threads;
+  private final ExecutorService executor;
+  private final ConcurrencyLimit concurrencyLimit;
+
+  DownloadPool(int threads) {
+    if (threads < 1)
+      throw new IllegalArgumentException("The number of download threads must be greater than zero");
+    this.threads = threads;
+    this.executor = Executors.newFixedThreadPool(threads, new DownloadThreadFactory());
+    this.concurrencyLimit = new ConcurrencyLimit(1, Math.min(INITIAL_CONCURRENCY, threads), threads);
+  }
+
+  int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Returns how many downloads can currently run at the same time.
+   */
+  int getConcurrencyLimit() {
+    return concurrencyLimit.getLimit();
+  }
+
+  /**
+   * Returns a new {@link Lane} for the downloads of a form.
+   */
+  Lane newLane() {
+    return new Lane(threads);
+  }
+
+  /**
+   * Waits for the running downloads to finish and stops the threads of this pool.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+    try {
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      log.warn("interrupted while waiting for pull to complete");
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * This class represents the share of a {@link DownloadPool} that a form gets.
+   * <p>
+   * Submitting a download blocks the caller while the form has as many downloads
+   * queued or running as threads in the pool.
+   */
+  class Lane implements Executor {
+    private final int maxPermits;
+    private final Semaphore permits;
+
+    private Lane(int permits) {
+      this.maxPermits = permits;
+      this.permits = new Semaphore(permits);
+    }
+
+    /**
+     * Returns how many downloads of the pool can currently run at the same time.
+     */
+    int getConcurrencyLimit() {
+      return DownloadPool.this.getConcurrencyLimit();
+    }
+
+    /**
+     * Waits until all the downloads submitted through this lane are done.
+     */
+    void awaitDownloads() {
+      try {
+        if (permits.tryAcquire(maxPermits, 1, TimeUnit.MINUTES))
+          permits.release(maxPermits);
+        else
+          log.warn("timed out while waiting for pull to complete");
+      } catch (InterruptedException e) {
+        log.warn("interrupted while waiting for pull to complete");
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    @Override
+    public void execute(Runnable download) {
+      try {
+        permits.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RejectedExecutionException("Interrupted while waiting to queue a download", e);
+      }
+      try {
+        executor.execute(() -> {
+          try {
+            runWithinLimit(download);
+          } finally {
+            permits.release();
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        permits.release();
+        throw e;
+      }
+    }
+  }
+
+  private void runWithinLimit(Runnable download) {
+    long startNanos;
+    try {
+      startNanos = concurrencyLimit.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      download.run();
+      return;
+    }
+    try {
+      download.run();
+    } finally {
+      if (hasFailed(download))
+        concurrencyLimit.onFailure(startNanos);
+      else
+        concurrencyLimit.onSuccess(startNanos);
+    }
+  }
+
+  /**
+   * Downloads are submitted through completion services, which hand us
+   * futures that hold the outcome of the download once they have run.
+   */
+  private static boolean hasFailed(Runnable download) {
+    if (!(download instanceof Future))
+      return false;
+    Future<?> future = (Future<?>) download;
+    if (!future.isDone() || future.isCancelled())
+      return false;
+    try {
+      future.get();
+      return false;
+    } catch (ExecutionException e) {
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static class DownloadThreadFactory implements ThreadFactory {
+    private static final AtomicInteger poolNumber = new AtomicInteger(1);
+    private final AtomicInteger threadNumber = new AtomicInteger(1);
+    private final String namePrefix;
+
+    DownloadThreadFactory() {
+      namePrefix = "briefcase-pull-" + poolNumber.getAndIncrement() + "-thread-";
+    }
+
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, namePrefix + threadNumber.getAndIncrement());
+      t.setPriority(Thread.MIN_PRIORITY);
+      t.setDaemon(true);
+      return t;
+    }
+  }
+}
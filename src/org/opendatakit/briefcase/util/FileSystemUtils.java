@@ -18,13 +18,12 @@ package org.opendatakit.briefcase.util;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
-import java.math.BigInteger;
 import java.nio.file.Path;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
@@ -50,6 +49,7 @@ import org.opendatakit.briefcase.model.CryptoException;
 import org.opendatakit.briefcase.model.FileSystemException;
 import org.opendatakit.briefcase.model.OdkCollectFormDefinition;
 import org.opendatakit.briefcase.model.ParsingException;
+import org.opendatakit.briefcase.reused.Md5;
 import org.opendatakit.briefcase.reused.UncheckedFiles;
 import org.opendatakit.briefcase.util.XmlManipulationUtils.FormInstanceMetadata;
 import org.slf4j.Logger;
@@ -322,59 +322,11 @@ public class FileSystemUtils {
 
   public static final String getMd5Hash(File file) {
     try {
-      // CTS (6/15/2010) : stream file through digest instead of handing
-      // it the
-      // byte[]
-      MessageDigest md = MessageDigest.getInstance("MD5");
-      int chunkSize = 256;
-
-      byte[] chunk = new byte[chunkSize];
-
-      // Get the size of the file
-      long lLength = file.length();
-
-      if (lLength > Integer.MAX_VALUE) {
-        log.error("File is too large");
-        return null;
-      }
-
-      int length = (int) lLength;
-
-      InputStream is = null;
-      is = new FileInputStream(file);
-
-      int l = 0;
-      for (l = 0; l + chunkSize < length; l += chunkSize) {
-        is.read(chunk, 0, chunkSize);
-        md.update(chunk, 0, chunkSize);
-      }
-
-      int remaining = length - l;
-      if (remaining > 0) {
-        is.read(chunk, 0, remaining);
-        md.update(chunk, 0, remaining);
-      }
-      byte[] messageDigest = md.digest();
-
-      BigInteger number = new BigInteger(1, messageDigest);
-      String md5 = number.toString(16);
-      while (md5.length() < 32)
-        md5 = "0" + md5;
-      is.close();
-      return md5;
-
-    } catch (NoSuchAlgorithmException e) {
-      log.error("MD5 calculation failed", e);
-      return null;
-
-    } catch (FileNotFoundException e) {
-      log.error("No File", e);
-      return null;
-    } catch (IOException e) {
+      return Md5.hash(file.toPath());
+    } catch (UncheckedIOException e) {
       log.error("Problem reading from file", e);
       return null;
     }
-
   }
 
   private static final void decryptFile(EncryptionInformation ei, File original, File unencryptedDir)
@@ -1,53 +1,72 @@
 package org.opendatakit.briefcase.util;
 
-import static org.opendatakit.briefcase.reused.Predicates.negate;
-import static org.opendatakit.briefcase.reused.UncheckedFiles.createFile;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.stream.Collectors.toList;
 import static org.opendatakit.briefcase.reused.UncheckedFiles.delete;
 import static org.opendatakit.briefcase.reused.UncheckedFiles.list;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InvalidClassException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 import org.bushe.swing.event.EventBus;
 import org.bushe.swing.event.annotation.AnnotationProcessor;
 import org.bushe.swing.event.annotation.EventSubscriber;
 import org.opendatakit.briefcase.model.BriefcaseFormDefinition;
 import org.opendatakit.briefcase.pull.PullEvent;
 import org.opendatakit.briefcase.reused.CacheUpdateEvent;
+import org.opendatakit.briefcase.reused.Md5;
+import org.opendatakit.briefcase.reused.Pair;
 import org.opendatakit.briefcase.reused.UncheckedFiles;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * This class holds the definitions of the forms in the storage directory.
+ * <p>
+ * It's stored in a versioned binary file that holds, for each form file, its
+ * size, last modification time, hash, form ID and serialized form definition.
+ * Loading the file only reads its bytes, and form definitions get deserialized
+ * the first time they're needed.
+ * <p>
+ * Updating the cache only reads those form files whose size or last modification
+ * time have changed, and only parses those whose hash has changed.
+ */
 public class FormCache {
   private static final Logger log = LoggerFactory.getLogger(FormCache.class);
-  private static final String CACHE_FILE_NAME = "cache.ser";
+  static final String CACHE_FILE_NAME = "forms.cache";
+  private static final String LEGACY_CACHE_FILE_NAME = "cache.ser";
+  private static final int MAGIC = 0x42464331; // "BFC1"
+  private static final int VERSION = 1;
   private Optional<Path> cacheFile;
   private Optional<Path> briefcaseDir;
-  private Map<String, String> hashByPath;
-  private Map<String, BriefcaseFormDefinition> formDefByPath;
+  private Map<String, Entry> entries;
 
-  private FormCache(Optional<Path> cacheFile, Map<String, String> hashByPath, Map<String, BriefcaseFormDefinition> formDefByPath) {
+  private FormCache(Optional<Path> cacheFile, Map<String, Entry> entries) {
     this.cacheFile = cacheFile;
     this.briefcaseDir = cacheFile.map(Path::getParent);
-    this.hashByPath = hashByPath;
-    this.formDefByPath = formDefByPath;
+    this.entries = entries;
     AnnotationProcessor.process(this);
   }
 
   public static FormCache empty() {
-    return new FormCache(Optional.empty(), new HashMap<>(), new HashMap<>());
+    return new FormCache(Optional.empty(), new TreeMap<>());
   }
 
   public static FormCache from(Path briefcaseDir) {
@@ -56,91 +75,183 @@ public class FormCache {
     return formCache;
   }
 
-  @SuppressWarnings("unchecked")
-  public void setLocation(Path newBriefcaseDir) {
+  public synchronized void setLocation(Path newBriefcaseDir) {
     briefcaseDir = Optional.of(newBriefcaseDir);
     Path cacheFilePath = newBriefcaseDir.resolve(CACHE_FILE_NAME);
     cacheFile = Optional.of(cacheFilePath);
-    if (Files.exists(cacheFilePath))
-      try (InputStream in = Files.newInputStream(cacheFilePath);
-           ObjectInputStream ois = new ObjectInputStream(in)) {
-        hashByPath = (Map<String, String>) ois.readObject();
-        formDefByPath = (Map<String, BriefcaseFormDefinition>) ois.readObject();
-      } catch (InvalidClassException e) {
-        log.warn("The serialized forms cache is incompatible due to an update on Briefcase");
-        delete(cacheFilePath);
-      } catch (IOException | ClassNotFoundException e) {
-        // We can't read the forms cache file for some reason. Log it, delete it,
-        // and let the next block create it new.
-        log.warn("Can't read forms cache file", e);
-        delete(cacheFilePath);
-      }
 
-    // Check again since it could be deleted in the previous block
-    if (!Files.exists(cacheFilePath)) {
-      createFile(cacheFilePath);
-      hashByPath = new HashMap<>();
-      formDefByPath = new HashMap<>();
+    // Caches written by previous versions of Briefcase can't be used
+    Path legacyCacheFilePath = newBriefcaseDir.resolve(LEGACY_CACHE_FILE_NAME);
+    if (Files.exists(legacyCacheFilePath))
+      delete(legacyCacheFilePath);
+
+    Optional<Map<String, Entry>> loadedEntries = Files.exists(cacheFilePath) ? load(cacheFilePath) : Optional.empty();
+    entries = loadedEntries.orElseGet(TreeMap::new);
+    if (!loadedEntries.isPresent())
       update();
-    }
   }
 
-  public void unsetLocation() {
+  public synchronized void unsetLocation() {
     briefcaseDir = Optional.empty();
     cacheFile = Optional.empty();
-    hashByPath = new HashMap<>();
-    formDefByPath = new HashMap<>();
+    entries = new TreeMap<>();
+  }
+
+  private static Optional<Map<String, Entry>> load(Path cacheFilePath) {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFilePath)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        log.warn("The forms cache file has an unknown format. It will be rebuilt");
+        return Optional.empty();
+      }
+      Map<String, Entry> entries = new TreeMap<>();
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        Path form = Paths.get(in.readUTF());
+        long size = in.readLong();
+        long lastModified = in.readLong();
+        String hash = in.readUTF();
+        String formId = in.readUTF();
+        byte[] serializedFormDef = new byte[in.readInt()];
+        in.readFully(serializedFormDef);
+        entries.put(form.toString(), new Entry(form, size, lastModified, hash, formId, null, serializedFormDef));
+      }
+      return Optional.of(entries);
+    } catch (IOException | RuntimeException e) {
+      // We can't read the forms cache file for some reason. Log it, and let the caller build it again.
+      log.warn("Can't read forms cache file", e);
+      return Optional.empty();
+    }
   }
 
   private void save() {
     cacheFile.ifPresent(path -> {
-      try (OutputStream out = Files.newOutputStream(path);
-           ObjectOutputStream oos = new ObjectOutputStream(out)) {
-        oos.writeObject(hashByPath);
-        oos.writeObject(formDefByPath);
-      } catch (IOException e) {
+      Path tempFile = path.resolveSibling(CACHE_FILE_NAME + ".tmp");
+      try {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+          out.writeInt(MAGIC);
+          out.writeInt(VERSION);
+          out.writeInt(entries.size());
+          for (Entry entry : entries.values()) {
+            byte[] serializedFormDef = entry.getSerializedFormDef();
+            out.writeUTF(entry.form.toString());
+            out.writeLong(entry.size);
+            out.writeLong(entry.lastModified);
+            out.writeUTF(entry.hash);
+            out.writeUTF(entry.formId);
+            out.writeInt(serializedFormDef.length);
+            out.write(serializedFormDef);
+          }
+        }
+        Files.move(tempFile, path, REPLACE_EXISTING, ATOMIC_MOVE);
+      } catch (IOException | UncheckedIOException e) {
         log.error("Can't serialize form cache", e);
       }
     });
   }
 
-  public List<BriefcaseFormDefinition> getForms() {
-    return new ArrayList<>(formDefByPath.values());
+  public synchronized List<BriefcaseFormDefinition> getForms() {
+    // Form definitions that haven't been used yet get deserialized in parallel
+    return entries.values().parallelStream()
+        .map(Entry::getFormDef)
+        .filter(Objects::nonNull)
+        .collect(toList());
   }
 
-  public void update() {
+  /**
+   * Returns the definition of the form with the given form ID.
+   * <p>
+   * Only the form files that this cache has for the given form ID get checked
+   * for changes. The whole cache gets updated only if none of them has it,
+   * which can happen when the form hasn't been cached yet.
+   */
+  public synchronized Optional<BriefcaseFormDefinition> getForm(String formId) {
+    Optional<BriefcaseFormDefinition> formDef = findForm(formId);
+    if (formDef.isPresent())
+      return formDef;
+    update();
+    return findForm(formId);
+  }
+
+  private Optional<BriefcaseFormDefinition> findForm(String formId) {
+    List<Entry> candidates = entries.values().stream()
+        .filter(entry -> entry.formId.equals(formId) && Files.exists(entry.form))
+        .collect(toList());
+    for (Entry candidate : candidates) {
+      Optional<Entry> entry = refresh(candidate.form, candidate);
+      if (entry.isPresent() && entry.get() != candidate) {
+        entries.put(candidate.form.toString(), entry.get());
+        save();
+      }
+      Optional<BriefcaseFormDefinition> formDef = entry
+          .filter(e -> e.formId.equals(formId))
+          .map(Entry::getFormDef);
+      if (formDef.isPresent())
+        return formDef;
+    }
+    return Optional.empty();
+  }
+
+  public synchronized void update() {
     briefcaseDir.ifPresent(path -> {
-      Set<String> scannedFiles = new HashSet<>();
-      list(path.resolve("forms"))
-          .filter(UncheckedFiles::isFormDir)
-          .forEach(formDir -> {
-            Path form = getFormFilePath(formDir);
-            scannedFiles.add(form.toString());
-            String hash = FileSystemUtils.getMd5Hash(form.toFile());
-            if (isFormNewOrChanged(form, hash)) {
-              try {
-                formDefByPath.put(form.toString(), new BriefcaseFormDefinition(form.getParent().toFile(), form.toFile()));
-                hashByPath.put(form.toString(), hash);
-              } catch (BadFormDefinition e) {
-                log.warn("Can't parse form file", e);
-              }
-            }
-          });
-      // Warning: Remove map entries by mutating the key set works because the key set is a view on the map
-      hashByPath.keySet().removeIf(negate(scannedFiles::contains));
-      formDefByPath.keySet().removeIf(negate(scannedFiles::contains));
+      List<Path> forms;
+      try (Stream<Path> formDirs = list(path.resolve("forms"))) {
+        forms = formDirs
+            .filter(UncheckedFiles::isFormDir)
+            .map(FormCache::getFormFilePath)
+            .collect(toList());
+      }
+      // Changed forms get hashed and parsed in parallel
+      List<Pair<String, Optional<Entry>>> scannedEntries = forms.parallelStream()
+          .map(form -> Pair.of(form.toString(), refresh(form, entries.get(form.toString()))))
+          .collect(toList());
+
+      Map<String, Entry> newEntries = new TreeMap<>();
+      scannedEntries.forEach(pair -> pair.getRight().ifPresent(entry -> newEntries.put(pair.getLeft(), entry)));
+      boolean changed = !newEntries.keySet().equals(entries.keySet())
+          || newEntries.entrySet().stream().anyMatch(e -> e.getValue() != entries.get(e.getKey()));
+      entries = newEntries;
       EventBus.publish(new CacheUpdateEvent());
-      save();
+      if (changed)
+        save();
     });
   }
 
-  private boolean isFormNewOrChanged(Path form, String hash) {
-    return hashByPath.get(form.toString()) == null
-        || formDefByPath.get(form.toString()) == null
-        || !hashByPath.get(form.toString()).equalsIgnoreCase(hash);
+  /**
+   * Returns the entry of the given form file, which is the given cached entry
+   * if the form file hasn't changed since it was cached.
+   * <p>
+   * Forms that can't be parsed keep their cached entry, if any.
+   */
+  private static Optional<Entry> refresh(Path form, Entry cachedEntry) {
+    long size;
+    long lastModified;
+    try {
+      size = Files.size(form);
+      lastModified = Files.getLastModifiedTime(form).toMillis();
+    } catch (IOException e) {
+      log.warn("Can't read form file attributes", e);
+      return Optional.ofNullable(cachedEntry);
+    }
+    if (cachedEntry != null && cachedEntry.size == size && cachedEntry.lastModified == lastModified)
+      return Optional.of(cachedEntry);
+
+    try {
+      String hash = Md5.hash(form);
+      if (cachedEntry != null && cachedEntry.hash.equalsIgnoreCase(hash))
+        return Optional.of(cachedEntry.withAttributes(size, lastModified));
+      BriefcaseFormDefinition formDef = parse(form);
+      return Optional.of(new Entry(form, size, lastModified, hash, formDef.getFormId(), formDef, null));
+    } catch (UncheckedIOException | BadFormDefinition e) {
+      log.warn("Can't parse form file", e);
+      return Optional.ofNullable(cachedEntry);
+    }
+  }
+
+  private static BriefcaseFormDefinition parse(Path form) throws BadFormDefinition {
+    return new BriefcaseFormDefinition(form.getParent().toFile(), form.toFile());
   }
 
-  private Path getFormFilePath(Path formDir) {
+  private static Path getFormFilePath(Path formDir) {
     return formDir.resolve(formDir.getFileName().toString() + ".xml");
   }
 
@@ -158,4 +269,62 @@ public class FormCache {
   public void onPullAbort(PullEvent.Abort event) {
     update();
   }
+
+  private static class Entry {
+    private final Path form;
+    private final long size;
+    private final long lastModified;
+    private final String hash;
+    private final String formId;
+    // At least one of these is not null. The other one gets lazily computed from it
+    private BriefcaseFormDefinition formDef;
+    private byte[] serializedFormDef;
+
+    Entry(Path form, long size, long lastModified, String hash, String formId, BriefcaseFormDefinition formDef, byte[] serializedFormDef) {
+      this.form = form;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.hash = hash;
+      this.formId = formId;
+      this.formDef = formDef;
+      this.serializedFormDef = serializedFormDef;
+    }
+
+    synchronized Entry withAttributes(long size, long lastModified) {
+      return new Entry(form, size, lastModified, hash, formId, formDef, serializedFormDef);
+    }
+
+    /**
+     * Returns the form definition of this entry, or null if it can't be
+     * deserialized nor parsed from its form file.
+     */
+    synchronized BriefcaseFormDefinition getFormDef() {
+      if (formDef == null)
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serializedFormDef))) {
+          formDef = (BriefcaseFormDefinition) ois.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+          // The serialized form definition could be incompatible due to an update on Briefcase
+          log.warn("Can't deserialize the cached form definition. Parsing the form file instead", e);
+          try {
+            formDef = parse(form);
+          } catch (BadFormDefinition e2) {
+            log.warn("Can't parse form file", e2);
+          }
+        }
+      return formDef;
+    }
+
+    synchronized byte[] getSerializedFormDef() {
+      if (serializedFormDef == null) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+          oos.writeObject(formDef);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        serializedFormDef = bytes.toByteArray();
+      }
+      return serializedFormDef;
+    }
+  }
 }
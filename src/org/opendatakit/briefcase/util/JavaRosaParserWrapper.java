@@ -2,14 +2,12 @@ package org.opendatakit.briefcase.util;
 
 import java.io.File;
 import java.io.UnsupportedEncodingException;
-import java.math.BigInteger;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 
 import org.javarosa.core.model.instance.TreeElement;
 import org.opendatakit.aggregate.exception.ODKIncompleteSubmissionData;
 import org.opendatakit.aggregate.form.XFormParameters;
 import org.opendatakit.aggregate.parser.BaseFormParserForJavaRosa;
+import org.opendatakit.briefcase.reused.Md5;
 import org.opendatakit.common.web.constants.HtmlConsts;
 
 public class JavaRosaParserWrapper extends BaseFormParserForJavaRosa {
@@ -27,20 +25,7 @@ public class JavaRosaParserWrapper extends BaseFormParserForJavaRosa {
   }
 
   public final static String newMD5HashUri(byte[] asBytes) {
-    try {
-      MessageDigest md = MessageDigest.getInstance("MD5");
-      md.update(asBytes);
-
-      byte[] messageDigest = md.digest();
-
-      BigInteger number = new BigInteger(1, messageDigest);
-      String md5 = number.toString(16);
-      while (md5.length() < 32)
-        md5 = "0" + md5;
-      return "md5:" + md5;
-    } catch (NoSuchAlgorithmException e) {
-      throw new IllegalStateException("Unexpected problem computing md5 hash", e);
-    }
+    return "md5:" + Md5.hash(asBytes);
   }
 
   public XFormParameters getRootElementDefn() {
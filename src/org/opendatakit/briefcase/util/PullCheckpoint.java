@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.opendatakit.briefcase.reused.Md5;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class represents how far the last pull of a form from some server got.
+ * <p>
+ * It holds the cursor of the submission list page that comes next, whether
+ * the pull went through the whole submission list, and the submissions that
+ * were listed before that page but haven't been downloaded yet. It is stored
+ * as a hidden file in the form's directory, and it's used to resume pulls
+ * that didn't finish.
+ * <p>
+ * Going through the whole list and downloading all its submissions are kept
+ * apart, since a submission that keeps failing shouldn't stop the next pulls
+ * from listing submissions from the beginning.
+ */
+class PullCheckpoint {
+  private static final Logger log = LoggerFactory.getLogger(PullCheckpoint.class);
+  private static final String HEADER = "# pull checkpoint v2";
+  private static final String CURSOR = "cursor";
+  private static final String EXHAUSTED = "exhausted";
+  private static final String PENDING = "pending";
+
+  private final Path checkpointFile;
+  private final String cursor;
+  private final boolean exhausted;
+  private final Set<String> pendingUris;
+
+  private PullCheckpoint(Path checkpointFile, String cursor, boolean exhausted, Set<String> pendingUris) {
+    this.checkpointFile = checkpointFile;
+    this.cursor = cursor;
+    this.exhausted = exhausted;
+    this.pendingUris = pendingUris;
+  }
+
+  /**
+   * Factory that loads the checkpoint of the last pull of a form from a server.
+   * <p>
+   * If there's no checkpoint, or it can't be read, a checkpoint that starts
+   * from the beginning of the submission list is returned.
+   *
+   * @param formDir   the {@link Path} to the form's directory
+   * @param serverUrl the URL of the server the form is pulled from
+   * @return a new {@link PullCheckpoint} instance
+   */
+  static PullCheckpoint load(Path formDir, String serverUrl) {
+    Path checkpointFile = formDir.resolve(".pull-" + Md5.hash(serverUrl.getBytes(UTF_8)) + ".checkpoint");
+    if (Files.exists(checkpointFile)) {
+      try (BufferedReader reader = Files.newBufferedReader(checkpointFile, UTF_8)) {
+        if (HEADER.equals(reader.readLine())) {
+          String cursor = "";
+          boolean exhausted = false;
+          Set<String> pendingUris = new LinkedHashSet<>();
+          String line;
+          while ((line = reader.readLine()) != null) {
+            String[] parts = line.split("\t", 2);
+            if (parts[0].equals(CURSOR))
+              cursor = parts[1];
+            else if (parts[0].equals(EXHAUSTED))
+              exhausted = Boolean.parseBoolean(parts[1]);
+            else if (parts[0].equals(PENDING))
+              pendingUris.add(parts[1]);
+          }
+          return new PullCheckpoint(checkpointFile, cursor, exhausted, pendingUris);
+        }
+      } catch (IOException | RuntimeException e) {
+        log.warn("Can't read the pull checkpoint", e);
+      }
+    }
+    return new PullCheckpoint(checkpointFile, "", false, Collections.emptySet());
+  }
+
+  /**
+   * Returns the cursor of the submission list page that comes after the last
+   * page the pull got to.
+   */
+  String getCursor() {
+    return cursor;
+  }
+
+  /**
+   * Returns true if the pull went through the whole submission list, even if
+   * some of its submissions are still pending.
+   */
+  boolean isExhausted() {
+    return exhausted;
+  }
+
+  /**
+   * Returns the submissions that were listed before the checkpoint's cursor
+   * but haven't been downloaded yet.
+   */
+  Set<String> getPendingUris() {
+    return pendingUris;
+  }
+
+  /**
+   * Writes a new checkpoint to disk.
+   * <p>
+   * Failing to write it won't make the pull fail. The next pull will just have
+   * to start from an older checkpoint.
+   */
+  void save(String cursor, Collection<String> pendingUris, boolean exhausted) {
+    Path tempFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+    try {
+      try (BufferedWriter writer = Files.newBufferedWriter(tempFile, UTF_8)) {
+        writer.write(HEADER);
+        writer.newLine();
+        writer.write(CURSOR + "\t" + cursor);
+        writer.newLine();
+        writer.write(EXHAUSTED + "\t" + exhausted);
+        writer.newLine();
+        for (String uri : pendingUris) {
+          writer.write(PENDING + "\t" + uri);
+          writer.newLine();
+        }
+      }
+      Files.move(tempFile, checkpointFile, REPLACE_EXISTING, ATOMIC_MOVE);
+    } catch (IOException e) {
+      log.warn("Can't write the pull checkpoint", e);
+    }
+  }
+}
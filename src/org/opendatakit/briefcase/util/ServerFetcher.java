@@ -27,18 +27,22 @@ import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import org.bushe.swing.event.EventBus;
 import org.bushe.swing.event.annotation.AnnotationProcessor;
 import org.opendatakit.briefcase.model.BriefcaseFormDefinition;
@@ -63,8 +67,14 @@ public class ServerFetcher {
 
   private static final String MD5_COLON_PREFIX = "md5:";
 
-  private static final int MAX_ENTRIES = 100;
+  public static final int DEFAULT_PAGE_SIZE = 100;
+  private static final long CHUNK_POLL_INTERVAL_MILLIS = 100;
+  // Form definitions, manifests and form media are fetched outside the download pool,
+  // which means that the number of forms pulled at the same time bounds those requests
+  private static final int MAX_PARALLEL_FORMS = 4;
   private final Boolean pullInParallel;
+  private final int pageSize;
+  private final boolean sinceLastPull;
 
   ServerConnectionInfo serverInfo;
 
@@ -124,138 +134,162 @@ public class ServerFetcher {
   }
 
   ServerFetcher(ServerConnectionInfo serverInfo, TerminationFuture future, Path briefcaseDir, Boolean pullInParallel) {
+    this(serverInfo, future, briefcaseDir, pullInParallel, DEFAULT_PAGE_SIZE, false);
+  }
+
+  /**
+   * @param sinceLastPull when true, pulls start listing submissions from where the
+   *                      last pull of each form stopped, even if it went through
+   *                      the whole list, instead of from the beginning
+   */
+  ServerFetcher(ServerConnectionInfo serverInfo, TerminationFuture future, Path briefcaseDir, Boolean pullInParallel, int pageSize, boolean sinceLastPull) {
+    if (pageSize < 1)
+      throw new IllegalArgumentException("The page size must be greater than zero");
     this.briefcaseDir = briefcaseDir;
     AnnotationProcessor.process(this);// if not using AOP
     this.serverInfo = serverInfo;
     this.terminationFuture = future;
     this.pullInParallel = pullInParallel;
+    this.pageSize = pageSize;
+    this.sinceLastPull = sinceLastPull;
   }
 
   public boolean isCancelled() {
     return terminationFuture.isCancelled();
   }
 
+  /**
+   * Pulls the given forms and their submissions.
+   * <p>
+   * All the forms share a single pool of download threads. When pulling in parallel,
+   * up to {@link #MAX_PARALLEL_FORMS} forms are pulled at the same time, and their
+   * downloads get interleaved.
+   */
   public boolean downloadFormAndSubmissionFiles(List<FormStatus> formsToTransfer) {
-    boolean allSuccessful = true;
+    int downloadThreads = pullInParallel ? MAX_CONNECTIONS_PER_ROUTE : 1;
+    int formThreads = Math.max(1, Math.min(pullInParallel ? MAX_PARALLEL_FORMS : 1, formsToTransfer.size()));
+    ExecutorService formsExecutor = Executors.newFixedThreadPool(formThreads);
+    try (DownloadPool downloadPool = new DownloadPool(downloadThreads)) {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (FormStatus fs : formsToTransfer)
+        results.add(formsExecutor.submit(() -> pullForm(fs, downloadPool.newLane())));
+      boolean allSuccessful = true;
+      for (Future<Boolean> result : results)
+        try {
+          allSuccessful = result.get() && allSuccessful;
+        } catch (InterruptedException | ExecutionException e) {
+          log.error("failure while pulling form", e);
+          allSuccessful = false;
+        }
+      return allSuccessful;
+    } finally {
+      formsExecutor.shutdown();
+    }
+  }
 
-    // boolean error = false;
-    int total = formsToTransfer.size();
+  private boolean pullForm(FormStatus fs, DownloadPool.Lane lane) {
+    if (isCancelled()) {
+      fs.setStatusString("Aborted. Skipping fetch of form and submissions...", true);
+      EventBus.publish(new FormStatusEvent(fs));
+      return false;
+    }
 
-    for (int i = 0; i < total; i++) {
-      FormStatus fs = formsToTransfer.get(i);
+    RemoteFormDefinition fd = getRemoteFormDefinition(fs);
+    fs.setStatusString("Fetching form definition", true);
+    EventBus.publish(new FormStatusEvent(fs));
+    try {
 
-      if (isCancelled()) {
-        fs.setStatusString("Aborted. Skipping fetch of form and submissions...", true);
-        EventBus.publish(new FormStatusEvent(fs));
-        return false;
-      }
+      File tmpdl = FileSystemUtils.getTempFormDefinitionFile();
+      AggregateUtils.commonDownloadFile(serverInfo, tmpdl, fd.getDownloadUrl());
 
-      RemoteFormDefinition fd = getRemoteFormDefinition(fs);
-      fs.setStatusString("Fetching form definition", true);
+      fs.setStatusString("resolving against briefcase form definitions", true);
       EventBus.publish(new FormStatusEvent(fs));
-      try {
-
-        File tmpdl = FileSystemUtils.getTempFormDefinitionFile();
-        AggregateUtils.commonDownloadFile(serverInfo, tmpdl, fd.getDownloadUrl());
-
-        fs.setStatusString("resolving against briefcase form definitions", true);
-        EventBus.publish(new FormStatusEvent(fs));
 
-        boolean successful = false;
-        BriefcaseFormDefinition briefcaseLfd;
-        DatabaseUtils formDatabase = null;
+      boolean successful = false;
+      BriefcaseFormDefinition briefcaseLfd;
+      DatabaseUtils formDatabase = null;
+      try {
         try {
-          try {
-            briefcaseLfd = BriefcaseFormDefinition.resolveAgainstBriefcaseDefn(tmpdl, briefcaseDir.toFile());
-            if (briefcaseLfd.needsMediaUpdate()) {
-
-              if (fd.getManifestUrl() != null) {
-                File mediaDir = FileSystemUtils.getMediaDirectory(briefcaseLfd.getFormDirectory());
-                String error = downloadManifestAndMediaFiles(mediaDir, fs);
-                if (error != null) {
-                  allSuccessful = false;
-                  fs.setStatusString("Error fetching form definition: " + error, false);
-                  EventBus.publish(new FormStatusEvent(fs));
-                  continue;
-                }
+          briefcaseLfd = BriefcaseFormDefinition.resolveAgainstBriefcaseDefn(tmpdl, briefcaseDir.toFile());
+          if (briefcaseLfd.needsMediaUpdate()) {
+
+            if (fd.getManifestUrl() != null) {
+              File mediaDir = FileSystemUtils.getMediaDirectory(briefcaseLfd.getFormDirectory());
+              String error = downloadManifestAndMediaFiles(mediaDir, fs);
+              if (error != null) {
+                fs.setStatusString("Error fetching form definition: " + error, false);
+                EventBus.publish(new FormStatusEvent(fs));
+                return false;
               }
-
             }
-            formDatabase = DatabaseUtils.newInstance(briefcaseLfd.getFormDirectory());
 
-          } catch (BadFormDefinition e) {
-            allSuccessful = false;
-            String msg = "Error parsing form definition";
-            log.error(msg, e);
-            fs.setStatusString(msg + ": " + e.getMessage(), false);
-            EventBus.publish(new FormStatusEvent(fs));
-            continue;
           }
+          formDatabase = DatabaseUtils.newInstance(briefcaseLfd.getFormDirectory());
 
-          fs.setStatusString("preparing to retrieve instance data", true);
-          EventBus.publish(new FormStatusEvent(fs));
-
-          File formInstancesDir = FileSystemUtils.getFormInstancesDirectory(briefcaseLfd.getFormDirectory());
-
-          // this will publish events
-          successful = downloadAllSubmissionsForForm(formInstancesDir, formDatabase, briefcaseLfd, fs);
-        } catch (SQLException | FileSystemException e) {
-          allSuccessful = false;
-          String msg = "unable to open form database";
+        } catch (BadFormDefinition e) {
+          String msg = "Error parsing form definition";
           log.error(msg, e);
           fs.setStatusString(msg + ": " + e.getMessage(), false);
           EventBus.publish(new FormStatusEvent(fs));
-          continue;
-        } finally {
-          if (formDatabase != null) {
-            try {
-              formDatabase.close();
-            } catch (SQLException e) {
-              allSuccessful = false;
-              String msg = "unable to close form database";
-              log.error(msg, e);
-              fs.setStatusString(msg + ": " + e.getMessage(), false);
-              EventBus.publish(new FormStatusEvent(fs));
-              continue;
-            }
-          }
+          return false;
         }
 
-        allSuccessful = allSuccessful && successful;
+        fs.setStatusString("preparing to retrieve instance data", true);
+        EventBus.publish(new FormStatusEvent(fs));
 
-        // on success, we haven't actually set a success event (because we don't know we're done)
-        if (successful) {
-          fs.setStatusString(SUCCESS_STATUS, true);
-          EventBus.publish(new FormStatusEvent(fs));
-          EventBus.publish(new PullEvent.NewForm(fs, serverInfo));
-        } else {
-          fs.setStatusString(FAILED_STATUS, true);
-          EventBus.publish(new FormStatusEvent(fs));
-        }
+        File formInstancesDir = FileSystemUtils.getFormInstancesDirectory(briefcaseLfd.getFormDirectory());
 
-      } catch (SocketTimeoutException se) {
-        allSuccessful = false;
-        log.error("error accessing URL", se);
-        fs.setStatusString("Communications to the server timed out. Detailed message: "
-            + se.getLocalizedMessage() + " while accessing: " + fd.getDownloadUrl()
-            + " A network login screen may be interfering with the transmission to the server.", false);
+        // this will publish events
+        successful = downloadAllSubmissionsForForm(formInstancesDir, formDatabase, briefcaseLfd, fs, lane);
+      } catch (SQLException | FileSystemException e) {
+        String msg = "unable to open form database";
+        log.error(msg, e);
+        fs.setStatusString(msg + ": " + e.getMessage(), false);
         EventBus.publish(new FormStatusEvent(fs));
-      } catch (IOException e) {
-        allSuccessful = false;
-        log.error("error accessing form download URL", e);
-        fs.setStatusString("Unexpected error: " + e.getLocalizedMessage() + " while accessing: "
-            + fd.getDownloadUrl()
-            + " A network login screen may be interfering with the transmission to the server.", false);
+        return false;
+      } finally {
+        if (formDatabase != null) {
+          try {
+            formDatabase.close();
+          } catch (SQLException e) {
+            String msg = "unable to close form database";
+            log.error(msg, e);
+            fs.setStatusString(msg + ": " + e.getMessage(), false);
+            EventBus.publish(new FormStatusEvent(fs));
+            return false;
+          }
+        }
+      }
+
+      // on success, we haven't actually set a success event (because we don't know we're done)
+      if (successful) {
+        fs.setStatusString(SUCCESS_STATUS, true);
         EventBus.publish(new FormStatusEvent(fs));
-      } catch (TransmissionException | URISyntaxException e) {
-        allSuccessful = false;
-        log.error("error accessing form download URL", e);
-        fs.setStatusString("Unexpected error: " + e.getLocalizedMessage() + " while accessing: "
-            + fd.getDownloadUrl(), false);
+        EventBus.publish(new PullEvent.NewForm(fs, serverInfo));
+      } else {
+        fs.setStatusString(FAILED_STATUS, true);
         EventBus.publish(new FormStatusEvent(fs));
       }
+      return successful;
+    } catch (SocketTimeoutException se) {
+      log.error("error accessing URL", se);
+      fs.setStatusString("Communications to the server timed out. Detailed message: "
+          + se.getLocalizedMessage() + " while accessing: " + fd.getDownloadUrl()
+          + " A network login screen may be interfering with the transmission to the server.", false);
+      EventBus.publish(new FormStatusEvent(fs));
+    } catch (IOException e) {
+      log.error("error accessing form download URL", e);
+      fs.setStatusString("Unexpected error: " + e.getLocalizedMessage() + " while accessing: "
+          + fd.getDownloadUrl()
+          + " A network login screen may be interfering with the transmission to the server.", false);
+      EventBus.publish(new FormStatusEvent(fs));
+    } catch (TransmissionException | URISyntaxException e) {
+      log.error("error accessing form download URL", e);
+      fs.setStatusString("Unexpected error: " + e.getLocalizedMessage() + " while accessing: "
+          + fd.getDownloadUrl(), false);
+      EventBus.publish(new FormStatusEvent(fs));
     }
-    return allSuccessful;
+    return false;
   }
 
   public RemoteFormDefinition getRemoteFormDefinition(FormStatus fs) {
@@ -285,113 +319,159 @@ public class ServerFetcher {
 
   ;
 
-  private static class DownloadThreadFactory implements ThreadFactory {
-    private static final AtomicInteger poolNumber = new AtomicInteger(1);
-    private final AtomicInteger threadNumber = new AtomicInteger(1);
-    private final String namePrefix;
-
-    public DownloadThreadFactory() {
-      namePrefix = "briefcase-pull-" + poolNumber.getAndIncrement() + "-thread-";
-    }
-
-    public Thread newThread(Runnable r) {
-      Thread t = new Thread(r, namePrefix + threadNumber.getAndIncrement());
-      t.setPriority(Thread.MIN_PRIORITY);
-      t.setDaemon(true);
-      return t;
-    }
-  }
-
-  private ExecutorService getFetchExecutorService(Boolean pullInParallel) {
-    int downloadThreads = pullInParallel ? MAX_CONNECTIONS_PER_ROUTE : 1;
-    return Executors.newFixedThreadPool(downloadThreads, new DownloadThreadFactory());
-  }
-
+  /**
+   * Downloads all the submissions of a form.
+   * <p>
+   * Submission list pages are requested one after the other, since each one needs
+   * the cursor of the previous one. The next page is requested as soon as a page
+   * arrives, and its submissions keep downloading while we wait for it.
+   * <p>
+   * A {@link PullCheckpoint} is saved after each page, so that a pull that doesn't
+   * finish can be resumed from where it stopped.
+   */
   private boolean downloadAllSubmissionsForForm(File formInstancesDir, DatabaseUtils formDatabase, BriefcaseFormDefinition lfd,
-                                                FormStatus fs) {
+                                                FormStatus fs, DownloadPool.Lane lane) {
     int submissionCount = 1;
     int chunkCount = 1;
+    long startNanos = System.nanoTime();
     boolean allSuccessful = true;
     RemoteFormDefinition fd = getRemoteFormDefinition(fs);
-    ExecutorService execSvc = getFetchExecutorService(pullInParallel);
-    CompletionService<SubmissionChunk> chunkCompleter = new ExecutorCompletionService<>(execSvc);
-    CompletionService<String> submissionCompleter = new ExecutorCompletionService<>(execSvc);
-
-    String oldWebsafeCursorString;
-    String websafeCursorString = "";
-
-    chunkCompleter.submit(new SubmissionChunkDownload(fs, fd.getFormId(), websafeCursorString));
-
-    boolean cursorFinished;
+    CompletionService<SubmissionChunk> chunkCompleter = new ExecutorCompletionService<>(lane);
+    CompletionService<String> submissionCompleter = new ExecutorCompletionService<>(lane);
+
+    PullCheckpoint checkpoint = PullCheckpoint.load(lfd.getFormDirectory().toPath(), serverInfo.getUrl());
+    // listed submissions that haven't been downloaded yet
+    Set<String> pendingUris = new LinkedHashSet<>(checkpoint.getPendingUris());
+    pendingUris.removeAll(getDownloadedUris(formDatabase, pendingUris));
+    Map<Future<String>, String> uriBySubmission = new HashMap<>();
+    // pending submissions are retried either way, but only pulls since the last one
+    // skip the pages of a submission list that has already been gone through
+    boolean restart = checkpoint.isExhausted() && !sinceLastPull;
+    String websafeCursorString = restart ? "" : checkpoint.getCursor();
+    // this will be null once we have reached the end of the cursor
+    Future<SubmissionChunk> nextChunk;
+    boolean cursorFinished = false;
 
     try {
-      do {
+      nextChunk = chunkCompleter.submit(new SubmissionChunkDownload(fs, fd.getFormId(), websafeCursorString));
+      for (String uri : pendingUris)
+        uriBySubmission.put(submissionCompleter.submit(new SubmissionDownload(formInstancesDir, formDatabase, lfd, fs, uri)), uri);
+
+      while (nextChunk != null || !uriBySubmission.isEmpty()) {
         if (isCancelled()) {
-          fs.setStatusString("aborting fetching submission chunks...", true);
+          fs.setStatusString("aborting fetching submissions...", true);
           EventBus.publish(new FormStatusEvent(fs));
           return false;
         }
 
-        fs.setStatusString("processing chunk " + chunkCount + "...", true);
-        EventBus.publish(new FormStatusEvent(fs));
+        if (nextChunk != null && (nextChunk.isDone() || uriBySubmission.isEmpty())) {
+          fs.setStatusString(String.format(
+              "processing chunk %d (%d concurrent downloads, %.1f submissions/s)...",
+              chunkCount,
+              lane.getConcurrencyLimit(),
+              (submissionCount - 1) * 1e9 / Math.max(1, System.nanoTime() - startNanos)
+          ), true);
+          EventBus.publish(new FormStatusEvent(fs));
 
-        oldWebsafeCursorString = websafeCursorString; // remember what we had...
-        SubmissionChunk chunk;
-        try {
-          chunk = chunkCompleter.take().get();
+          SubmissionChunk chunk;
+          try {
+            chunk = nextChunk.get();
+          } catch (InterruptedException | ExecutionException e) {
+            return false;
+          }
           chunkCount += 1;
+          String oldWebsafeCursorString = websafeCursorString;
           websafeCursorString = chunk.websafeCursorString;
-          cursorFinished = oldWebsafeCursorString.equals(websafeCursorString);
-        } catch (InterruptedException | ExecutionException e) {
-          return false;
-        }
+          Set<String> downloadedUris = getDownloadedUris(formDatabase, chunk.uriList);
+          if (!downloadedUris.isEmpty()) {
+            log.info("already present - skipping fetch of " + downloadedUris.size() + " submissions");
+            fs.setStatusString(String.format("skipping %d submissions already in the briefcase...", downloadedUris.size()), true);
+            EventBus.publish(new FormStatusEvent(fs));
+          }
+          List<String> newUris = new ArrayList<>();
+          for (String uri : chunk.uriList)
+            if (!downloadedUris.contains(uri) && pendingUris.add(uri))
+              newUris.add(uri);
+          checkpoint.save(websafeCursorString, pendingUris, false);
 
-        if (!cursorFinished) {
-          // submit another chunk request so it's ready by the time we finish processing this chunk
-          chunkCompleter.submit(new SubmissionChunkDownload(fs, fd.getFormId(), websafeCursorString));
-        }
+          // request the next chunk before queuing this chunk's submissions so that it's ready before they're done
+          cursorFinished = oldWebsafeCursorString.equals(websafeCursorString);
+          nextChunk = cursorFinished
+              ? null
+              : chunkCompleter.submit(new SubmissionChunkDownload(fs, fd.getFormId(), websafeCursorString));
 
-        // submit a download job for each uri in the chunk
-        for (String uri : chunk.uriList) {
-          if (isCancelled()) {
-            fs.setStatusString("aborting requesting submissions...", true);
-            EventBus.publish(new FormStatusEvent(fs));
-            return false;
+          for (String uri : newUris) {
+            if (isCancelled()) {
+              fs.setStatusString("aborting requesting submissions...", true);
+              EventBus.publish(new FormStatusEvent(fs));
+              return false;
+            }
+            uriBySubmission.put(submissionCompleter.submit(new SubmissionDownload(formInstancesDir, formDatabase, lfd, fs, uri)), uri);
           }
-          submissionCompleter.submit(new SubmissionDownload(formInstancesDir, formDatabase, lfd, fs, uri));
+          continue;
         }
 
-        // call take() and get() exactly once for each download submitted above (we don't need the uri)
-        for (int i = 0; i < chunk.uriList.size(); i++) {
-          if (isCancelled()) {
-            fs.setStatusString("aborting processing submissions...", true);
-            EventBus.publish(new FormStatusEvent(fs));
-            return false;
-          }
-          try {
-            submissionCompleter.take().get();
-            fs.setStatusString(String.format("fetched instance %s...", submissionCount++), true);
-            EventBus.publish(new FormStatusEvent(fs));
-          } catch (InterruptedException | ExecutionException e) {
-            log.error("failure during submission download", e);
-            allSuccessful = false;
-            fs.setStatusString("Submission not retrieved: " + e.getMessage(), false);
-            EventBus.publish(new FormStatusEvent(fs));
-            // but try to get the next one...
-          }
+        // while the next chunk is on its way, don't wait for a submission longer than a moment
+        try {
+          Future<String> submission = nextChunk == null
+              ? submissionCompleter.take()
+              : submissionCompleter.poll(CHUNK_POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+          if (submission == null)
+            continue;
+          String uri = uriBySubmission.remove(submission);
+          submission.get();
+          // failed submissions are kept pending so that the next pull retries them
+          pendingUris.remove(uri);
+          fs.setStatusString(String.format("fetched instance %s...", submissionCount++), true);
+          EventBus.publish(new FormStatusEvent(fs));
+        } catch (InterruptedException | ExecutionException e) {
+          log.error("failure during submission download", e);
+          allSuccessful = false;
+          fs.setStatusString("Submission not retrieved: " + e.getMessage(), false);
+          EventBus.publish(new FormStatusEvent(fs));
+          // but try to get the next one...
         }
-      } while (!cursorFinished);
-    } finally {
-      execSvc.shutdown();
-      try {
-        execSvc.awaitTermination(1, TimeUnit.MINUTES);
-      } catch (InterruptedException e) {
-        log.warn("interrupted while waiting for pull to complete");
       }
+    } catch (RejectedExecutionException e) {
+      log.warn("pull interrupted while queuing downloads", e);
+      return false;
+    } finally {
+      // the form's database can't be closed while its downloads are still running
+      lane.awaitDownloads();
+      Future<String> submission;
+      while ((submission = submissionCompleter.poll()) != null)
+        if (isSuccessful(submission))
+          pendingUris.remove(uriBySubmission.get(submission));
+      checkpoint.save(websafeCursorString, pendingUris, cursorFinished);
     }
     return allSuccessful;
   }
 
+  /**
+   * Returns the given submissions that are already present in the briefcase,
+   * looking them up in the form's database all at once.
+   */
+  private static Set<String> getDownloadedUris(DatabaseUtils formDatabase, Collection<String> uris) {
+    Set<String> downloadedUris = new HashSet<>();
+    formDatabase.getRecordedInstances(uris).forEach((uri, instanceFolder) -> {
+      //check if the submission file is present in the folder before skipping
+      File instance = new File(instanceFolder, "submission.xml");
+      File instanceEncrypted = new File(instanceFolder, "submission.xml.enc");
+      if (instance.exists() || instanceEncrypted.exists())
+        downloadedUris.add(uri);
+    });
+    return downloadedUris;
+  }
+
+  private static boolean isSuccessful(Future<?> download) {
+    try {
+      download.get();
+      return true;
+    } catch (InterruptedException | ExecutionException e) {
+      return false;
+    }
+  }
+
   private class SubmissionChunkDownload implements Callable<SubmissionChunk> {
 
     private final FormStatus fs;
@@ -405,7 +485,7 @@ public class ServerFetcher {
     private String getChunkUrl(String formId, String cursor) {
       String baseUrl = serverInfo.getUrl() + "/view/submissionList";
       Map<String, String> params = new HashMap<>();
-      params.put("numEntries", Integer.toString(MAX_ENTRIES));
+      params.put("numEntries", Integer.toString(pageSize));
       params.put("formId", formId);
       params.put("cursor", cursor);
       return WebUtils.createLinkWithProperties(baseUrl, params);
@@ -468,17 +548,7 @@ public class ServerFetcher {
   private void downloadSubmission(File formInstancesDir, DatabaseUtils formDatabase, BriefcaseFormDefinition lfd, FormStatus fs,
                                   String uri) throws Exception {
 
-    File instanceFolder = formDatabase.hasRecordedInstance(uri);
-    if (instanceFolder != null) {
-      //check if the submission file is present in the folder before skipping
-      File instance = new File(instanceFolder, "submission.xml");
-      File instanceEncrypted = new File(instanceFolder, "submission.xml.enc");
-      if (instance.exists() || instanceEncrypted.exists()) {
-        log.info("already present - skipping fetch: " + uri);
-        return;
-      }
-    }
-
+    // submissions that are already present have been filtered out before getting here
     String formId = lfd.getSubmissionKey(uri);
 
     if (isCancelled()) {
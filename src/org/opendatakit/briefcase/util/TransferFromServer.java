@@ -32,20 +32,28 @@ public class TransferFromServer implements ITransferFromSourceAction {
   final TerminationFuture terminationFuture;
   final List<FormStatus> formsToTransfer;
   private final Boolean pullInParallel;
+  private final int pageSize;
+  private final boolean sinceLastPull;
   private Path briefcaseDir;
 
   public TransferFromServer(ServerConnectionInfo originServerInfo, TerminationFuture terminationFuture, List<FormStatus> formsToTransfer, Path briefcaseDir, Boolean pullInParallel) {
+    this(originServerInfo, terminationFuture, formsToTransfer, briefcaseDir, pullInParallel, ServerFetcher.DEFAULT_PAGE_SIZE, false);
+  }
+
+  public TransferFromServer(ServerConnectionInfo originServerInfo, TerminationFuture terminationFuture, List<FormStatus> formsToTransfer, Path briefcaseDir, Boolean pullInParallel, int pageSize, boolean sinceLastPull) {
     this.originServerInfo = originServerInfo;
     this.terminationFuture = terminationFuture;
     this.formsToTransfer = formsToTransfer;
     this.briefcaseDir = briefcaseDir;
     this.pullInParallel = pullInParallel;
+    this.pageSize = pageSize;
+    this.sinceLastPull = sinceLastPull;
   }
 
   @Override
   public boolean doAction() {
 
-    ServerFetcher fetcher = new ServerFetcher(originServerInfo, terminationFuture, briefcaseDir, pullInParallel);
+    ServerFetcher fetcher = new ServerFetcher(originServerInfo, terminationFuture, briefcaseDir, pullInParallel, pageSize, sinceLastPull);
 
     return fetcher.downloadFormAndSubmissionFiles(formsToTransfer);
   }
@@ -56,8 +64,12 @@ public class TransferFromServer implements ITransferFromSourceAction {
   }
 
   public static void pull(ServerConnectionInfo transferSettings, Path briefcaseDir, Boolean pullInParallel, FormStatus... forms) {
+    pull(transferSettings, briefcaseDir, pullInParallel, ServerFetcher.DEFAULT_PAGE_SIZE, false, forms);
+  }
+
+  public static void pull(ServerConnectionInfo transferSettings, Path briefcaseDir, Boolean pullInParallel, int pageSize, boolean sinceLastPull, FormStatus... forms) {
     List<FormStatus> formList = Arrays.asList(forms);
-    TransferFromServer action = new TransferFromServer(transferSettings, new TerminationFuture(), formList, briefcaseDir, pullInParallel);
+    TransferFromServer action = new TransferFromServer(transferSettings, new TerminationFuture(), formList, briefcaseDir, pullInParallel, pageSize, sinceLastPull);
 
     try {
       boolean allSuccessful = action.doAction();
@@ -69,11 +69,13 @@ public final class WebUtils {
   public static final String OPEN_ROSA_VERSION = "1.0";
   private static final String DATE_HEADER = "Date";
 
-  static final int MAX_CONNECTIONS_PER_ROUTE = Runtime.getRuntime().availableProcessors() * 3;
+  // Pulls adapt how many of these they use to what the server can take
+  static final int MAX_CONNECTIONS_PER_ROUTE = 32;
 
   private static final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
 
   static {
+    connectionManager.setMaxTotal(MAX_CONNECTIONS_PER_ROUTE);
     connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
   }
 
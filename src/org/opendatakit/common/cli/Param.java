@@ -85,6 +85,33 @@ public class Param<T> {
     );
   }
 
+  /**
+   * Creates a new {@link Param}&lt;{@link Integer}&gt; instance for a command-line arg
+   * that only takes numbers greater than zero
+   *
+   * @param shortCode   the shortcode (usually one or two chars)
+   * @param longCode    the longcode (usually some words separated by hyphens)
+   * @param description the description
+   * @return a new {@link Param}&lt;{@link Integer}&gt; instance
+   */
+  public static Param<Integer> positiveInt(String shortCode, String longCode, String description) {
+    return Param.arg(
+        shortCode,
+        longCode,
+        description,
+        numberAsText -> {
+          try {
+            int number = Integer.parseInt(numberAsText);
+            if (number > 0)
+              return number;
+          } catch (NumberFormatException e) {
+            // Reported below
+          }
+          throw new BriefcaseException("Invalid value of -" + shortCode + ". It must be a number greater than zero.");
+        }
+    );
+  }
+
   /**
    * Creates a new {@link Param}&lt;{@link Void}&gt; instance for a command-line flag
    *
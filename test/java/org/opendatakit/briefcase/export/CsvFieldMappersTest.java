@@ -415,7 +415,7 @@ public class CsvFieldMappersTest {
               getWorkDir(),
               fieldModel,
               Optional.of(value),
-              getOutputMediaDir(),
+              MediaStore.load(getOutputMediaDir()),
               exportMedia
           )
           .collect(toList());
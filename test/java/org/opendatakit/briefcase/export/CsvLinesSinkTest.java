@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+public class CsvLinesSinkTest {
+  private static final OffsetDateTime SOME_DATE = OffsetDateTime.parse("2018-01-01T00:00:00.000Z");
+
+  @Test
+  public void groups_lines_by_model_fqn() {
+    CsvLinesSink sink = new CsvLinesSink(2);
+    sink.accept(CsvLines.of("some fqdn", SOME_DATE, "line 1"));
+    sink.accept(CsvLines.of("some other fqdn", SOME_DATE, "line 2"));
+    sink.accept(CsvLines.of("some fqdn", SOME_DATE, "line 3"));
+
+    CsvLines someFqdnLines = sink.drain("some fqdn");
+    assertThat(someFqdnLines.getModelFqn(), is("some fqdn"));
+    assertThat(someFqdnLines.unsorted().collect(toList()), containsInAnyOrder("line 1", "line 3"));
+
+    CsvLines someOtherFqdnLines = sink.drain("some other fqdn");
+    assertThat(someOtherFqdnLines.getModelFqn(), is("some other fqdn"));
+    assertThat(someOtherFqdnLines.unsorted().collect(toList()), containsInAnyOrder("line 2"));
+  }
+
+  @Test
+  public void draining_a_model_without_lines_produces_an_empty_instance() {
+    CsvLines csvLines = new CsvLinesSink().drain("some fqdn");
+    assertThat(csvLines.getModelFqn(), is("some fqdn"));
+    assertThat(csvLines.unsorted().collect(toList()), is(empty()));
+  }
+
+  @Test
+  public void draining_removes_the_lines_from_the_sink() {
+    CsvLinesSink sink = new CsvLinesSink();
+    sink.accept(CsvLines.of("some fqdn", SOME_DATE, "line 1"));
+    sink.drain("some fqdn");
+    assertThat(sink.drain("some fqdn").unsorted().collect(toList()), is(empty()));
+  }
+
+  @Test
+  public void collects_lines_appended_concurrently() {
+    CsvLinesSink sink = new CsvLinesSink(4);
+    IntStream.range(0, 10000).parallel().forEach(n -> sink.accept(CsvLines.of("some fqdn", SOME_DATE, "line " + n)));
+    List<String> lines = sink.drain("some fqdn").unsorted().collect(toList());
+    assertThat(lines, hasSize(10000));
+    assertThat(lines.stream().distinct().count(), is(10000L));
+  }
+}
@@ -16,19 +16,15 @@
 
 package org.opendatakit.briefcase.export;
 
-import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.hamcrest.Matchers.contains;
-import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
-import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
 import java.time.OffsetDateTime;
 import java.util.Arrays;
 import java.util.List;
 import org.junit.Test;
-import org.opendatakit.briefcase.reused.BriefcaseException;
 
 public class CsvLinesTest {
 
@@ -60,42 +56,4 @@ public class CsvLinesTest {
     assertThat(lines, hasSize(2));
     assertThat(lines, contains("2018-01-01T00:00:00.000Z", "2018-01-02T00:00:00.000Z"));
   }
-
-  @Test
-  public void instances_with_the_same_fqdn_can_be_merged() {
-    CsvLines csvLines1 = new CsvLines("some fqdn", singletonList(createCsvLine("2018-01-01T00:00:00.000Z")));
-    CsvLines csvLines2 = new CsvLines("some fqdn", singletonList(createCsvLine("2018-01-02T00:00:00.000Z")));
-    CsvLines mergedCsvLines = CsvLines.merge(csvLines1, csvLines2);
-    assertThat(mergedCsvLines.getModelFqn(), is("some fqdn"));
-    List<String> lines = mergedCsvLines.unsorted().collect(toList());
-    // We don't care about the order but we need to know that all the expected lines are there
-    assertThat(lines, hasSize(2));
-    assertThat(lines, containsInAnyOrder("2018-01-01T00:00:00.000Z", "2018-01-02T00:00:00.000Z"));
-  }
-
-  @Test
-  public void instances_can_be_merged_even_if_one_does_not_have_fqdn() {
-    CsvLines empty = CsvLines.empty();
-    CsvLines nonEmpty = new CsvLines("some fqdn", singletonList(createCsvLine("2018-01-01T00:00:00.000Z")));
-
-    CsvLines leftWasEmpty = CsvLines.merge(empty, nonEmpty);
-    assertThat(leftWasEmpty.getModelFqn(), is("some fqdn"));
-    assertThat(leftWasEmpty.unsorted().collect(toList()), hasSize(1));
-
-    CsvLines rightWasEmpty = CsvLines.merge(nonEmpty, empty);
-    assertThat(rightWasEmpty.getModelFqn(), is("some fqdn"));
-    assertThat(rightWasEmpty.unsorted().collect(toList()), hasSize(1));
-  }
-
-  @Test(expected = BriefcaseException.class)
-  public void throws_when_merging_two_instances_with_non_matching_fqdns() {
-    CsvLines csvLines1 = new CsvLines("some fqdn", singletonList(createCsvLine("2018-01-01T00:00:00.000Z")));
-    CsvLines csvLines2 = new CsvLines("some other fqdn", singletonList(createCsvLine("2018-01-02T00:00:00.000Z")));
-    CsvLines.merge(csvLines1, csvLines2);
-  }
-
-  @Test(expected = BriefcaseException.class)
-  public void throws_when_merging_two_instances_without_fqdns() {
-    CsvLines.merge(CsvLines.empty(), CsvLines.empty());
-  }
-}
\ No newline at end of file
+}
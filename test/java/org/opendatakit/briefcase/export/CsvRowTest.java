@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class CsvRowTest {
+  @Test
+  public void joins_values_with_commas() {
+    assertThat(CsvRow.start().append("a", false).append("b", false).appendRaw("c").build(), is("a,b,c"));
+  }
+
+  @Test
+  public void encodes_null_and_empty_values() {
+    assertThat(CsvRow.start().append(null, true).append("", true).append(null, false).append("", false).build(), is(",,\"\",\"\""));
+  }
+
+  @Test
+  public void quotes_values_with_line_breaks_double_quotes_or_commas() {
+    assertThat(CsvRow.start().append("some\nvalue", false).build(), is("\"some\nvalue\""));
+    assertThat(CsvRow.start().append("some, value", false).build(), is("\"some, value\""));
+    assertThat(CsvRow.start().append("some \"value\"", false).build(), is("\"some \"\"value\"\"\""));
+  }
+
+  @Test
+  public void starts_a_new_line_each_time() {
+    CsvRow.start().append("a", false).build();
+    assertThat(CsvRow.start().append("b", false).build(), is("b"));
+  }
+}
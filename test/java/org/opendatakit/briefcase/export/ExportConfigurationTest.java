@@ -113,6 +113,7 @@ public class ExportConfigurationTest {
     assertThat(empty().setEndDate(LocalDate.of(2018, 1, 1)), not(isEmpty()));
     assertThat(empty().setPullBefore(true), not(isEmpty()));
     assertThat(empty().setPullBeforeOverride(PULL), not(isEmpty()));
+    assertThat(empty().setIncrementalExport(true), not(isEmpty()));
   }
 
   @Test
@@ -138,6 +139,13 @@ public class ExportConfigurationTest {
     assertThat(config, not(isValid()));
   }
 
+  @Test
+  public void a_configuration_is_not_valid_when_the_max_buffered_submissions_is_not_positive() {
+    ExportConfiguration config = empty().setExportDir(VALID_EXPORT_DIR);
+    assertThat(config.setMaxBufferedSubmissions(1), isValid());
+    assertThat(config.setMaxBufferedSubmissions(0), not(isValid()));
+  }
+
   @Test
   public void a_configuration_is_not_valid_when_missing_the_end_of_the_date_range() {
     ExportConfiguration config = empty();
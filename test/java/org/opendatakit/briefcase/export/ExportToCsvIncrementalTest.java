@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.opendatakit.briefcase.export.ExportOutcome.ALL_EXPORTED;
+import static org.opendatakit.briefcase.export.ExportOutcome.SOME_SKIPPED;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.copy;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.createDirectories;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.delete;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.list;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.readAllBytes;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.write;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExportToCsvIncrementalTest {
+  private ExportToCsvScenario scenario;
+
+  @Before
+  public void setUp() {
+    scenario = ExportToCsvScenario.setUp("nested-repeats");
+  }
+
+  @After
+  public void tearDown() {
+    scenario.tearDown();
+  }
+
+  @Test
+  public void does_not_export_again_submissions_already_exported() {
+    scenario.runIncrementalExport();
+    scenario.runIncrementalExport();
+    scenario.assertSameContent("overwrite");
+    scenario.assertSameContentRepeats("overwrite", "g1", "g2", "g3");
+  }
+
+  @Test
+  public void knows_which_submissions_have_been_exported_by_non_incremental_exports() {
+    scenario.runExport(false);
+    scenario.runIncrementalExport();
+    scenario.assertSameContent("overwrite");
+    scenario.assertSameContentRepeats("overwrite", "g1", "g2", "g3");
+  }
+
+  @Test
+  public void exports_everything_again_when_a_pending_submission_is_older_than_the_exported_ones() {
+    ExportToCsvScenario simpleForm = ExportToCsvScenario.setUp("simple-form");
+    try {
+      String submissionTpl = simpleForm.readFile("simple-form-submission.xml.tpl");
+      LocalDate startOfYear = LocalDate.of(2018, 1, 1);
+      IntStream.range(10, 20).forEach(n -> simpleForm.createInstance(submissionTpl, startOfYear.plusDays(n)));
+      simpleForm.runIncrementalExport();
+      simpleForm.createInstance(submissionTpl, startOfYear.plusDays(5));
+      simpleForm.runIncrementalExport();
+      String incrementalOutput = simpleForm.readOutput();
+
+      simpleForm.runExport();
+
+      assertThat(incrementalOutput, is(simpleForm.readOutput()));
+    } finally {
+      simpleForm.tearDown();
+    }
+  }
+
+  @Test
+  public void exports_everything_again_when_the_date_range_changes() {
+    ExportToCsvScenario simpleForm = ExportToCsvScenario.setUp("simple-form");
+    try {
+      String submissionTpl = simpleForm.readFile("simple-form-submission.xml.tpl");
+      LocalDate startOfYear = LocalDate.of(2018, 1, 1);
+      IntStream.range(0, 30).forEach(n -> simpleForm.createInstance(submissionTpl, startOfYear.plusDays(n)));
+      simpleForm.runIncrementalExport(LocalDate.of(2018, 1, 10), LocalDate.of(2018, 1, 20));
+      simpleForm.runIncrementalExport(LocalDate.of(2018, 1, 1), LocalDate.of(2018, 1, 15));
+      String incrementalOutput = simpleForm.readOutput();
+
+      simpleForm.runExport(LocalDate.of(2018, 1, 1), LocalDate.of(2018, 1, 15));
+
+      assertThat(incrementalOutput, is(simpleForm.readOutput()));
+    } finally {
+      simpleForm.tearDown();
+    }
+  }
+
+  @Test
+  public void appends_new_submissions_when_an_older_one_was_skipped() {
+    ExportToCsvScenario encryptedForm = ExportToCsvScenario.setUp("encrypted-form-media");
+    try {
+      Path pemFile = ExportToCsvScenario.getPath("encrypted-form-media-key.pem");
+      // This submission can't be exported because its media file is missing
+      Path skippedSubmissionDir = copySubmission(encryptedForm, "uuid-skipped", "2018-05-14T19:52:27.705Z");
+      delete(skippedSubmissionDir.resolve("1526413928119.jpg.enc"));
+      assertThat(encryptedForm.runIncrementalExport(pemFile), is(SOME_SKIPPED));
+
+      copySubmission(encryptedForm, "uuid-new", "2018-05-16T19:52:27.705Z");
+
+      // Only the new submission gets exported, which means that it's appended to the output
+      assertThat(encryptedForm.runIncrementalExport(pemFile), is(ALL_EXPORTED));
+      assertThat(encryptedForm.readOutput().split("\n").length, is(3));
+    } finally {
+      encryptedForm.tearDown();
+    }
+  }
+
+  private static Path copySubmission(ExportToCsvScenario scenario, String instanceDirName, String submissionDate) {
+    Path sourceDir = scenario.getSubmissionDir();
+    Path targetDir = createDirectories(sourceDir.resolveSibling(instanceDirName));
+    list(sourceDir).forEach(file -> copy(file, targetDir.resolve(file.getFileName())));
+    Path submission = targetDir.resolve("submission.xml");
+    write(submission, new String(readAllBytes(submission)).replace("2018-05-15T19:52:27.705Z", submissionDate).getBytes());
+    return targetDir;
+  }
+}
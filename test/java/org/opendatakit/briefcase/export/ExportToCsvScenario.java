@@ -131,6 +131,22 @@ class ExportToCsvScenario {
   }
 
   void runExport(boolean overwrite, boolean exportMedia, LocalDate startDate, LocalDate endDate, Path pemFile) {
+    runExport(overwrite, exportMedia, false, startDate, endDate, pemFile);
+  }
+
+  ExportOutcome runIncrementalExport(Path pemFile) {
+    return runExport(false, true, true, null, null, pemFile);
+  }
+
+  void runIncrementalExport() {
+    runExport(false, true, true, null, null, null);
+  }
+
+  void runIncrementalExport(LocalDate startDate, LocalDate endDate) {
+    runExport(false, true, true, startDate, endDate, null);
+  }
+
+  ExportOutcome runExport(boolean overwrite, boolean exportMedia, boolean incremental, LocalDate startDate, LocalDate endDate, Path pemFile) {
     ExportConfiguration configuration = new ExportConfiguration(
         Optional.empty(),
         Optional.of(outputDir.resolve("new")),
@@ -140,9 +156,10 @@ class ExportToCsvScenario {
         Optional.of(false),
         Optional.empty(),
         Optional.of(overwrite),
-        Optional.of(exportMedia)
+        Optional.of(exportMedia),
+        Optional.of(incremental)
     );
-    ExportToCsv.export(formDef, configuration);
+    return ExportToCsv.export(formDef, configuration);
   }
 
   void assertSameContent() {
@@ -155,6 +172,10 @@ class ExportToCsvScenario {
     assertThat(newOutput, is(oldOutput));
   }
 
+  String readOutput() {
+    return new String(readAllBytes(outputDir.resolve("new").resolve(stripIllegalChars(formDef.getFormName()) + ".csv")));
+  }
+
   void assertSameMedia() {
     assertSameMedia("");
   }
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static java.text.DateFormat.getDateInstance;
+import static java.text.DateFormat.getDateTimeInstance;
+import static java.text.DateFormat.getTimeInstance;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.opendatakit.common.utils.WebUtils.parseDate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LocalizedDatesTest {
+  private static final List<String> LOCALES = Arrays.asList("en-US", "es-ES", "fr-FR", "de-DE", "ja-JP", "zh-SG", "ar-SA", "hi-IN", "th-TH", "th-TH-u-ca-buddhist");
+  private static final List<String> ZONES = Arrays.asList("UTC", "Europe/Madrid", "Asia/Kolkata", "America/Sao_Paulo");
+  private static final List<String> VALUES = Arrays.asList(
+      "2018-01-01",
+      "17:30:15.123Z",
+      "2018-01-01T17:30:15.123Z",
+      "2018-07-04T03:04:05.000+02:00",
+      "1850-06-15T10:00:00.000Z"
+  );
+  private Locale backupLocale;
+  private TimeZone backupTimeZone;
+
+  @Before
+  public void setUp() {
+    backupLocale = Locale.getDefault();
+    backupTimeZone = TimeZone.getDefault();
+  }
+
+  @After
+  public void tearDown() {
+    Locale.setDefault(backupLocale);
+    TimeZone.setDefault(backupTimeZone);
+  }
+
+  @Test
+  public void produces_the_same_output_as_the_default_date_formats() {
+    for (String locale : LOCALES)
+      for (String zone : ZONES) {
+        Locale.setDefault(Locale.forLanguageTag(locale));
+        TimeZone.setDefault(TimeZone.getTimeZone(zone));
+        for (String value : VALUES) {
+          String scenario = locale + " " + zone + " " + value + ": ";
+          assertThat(scenario + LocalizedDates.current().formatDate(value), is(scenario + getDateInstance().format(parseDate(value))));
+          assertThat(scenario + LocalizedDates.current().formatTime(value), is(scenario + getTimeInstance().format(parseDate(value))));
+          assertThat(scenario + LocalizedDates.current().formatDateTime(value), is(scenario + getDateTimeInstance().format(parseDate(value))));
+          assertThat(scenario + LocalizedDates.current().formatDateTime(parseDate(value)), is(scenario + getDateTimeInstance().format(parseDate(value))));
+        }
+      }
+  }
+}
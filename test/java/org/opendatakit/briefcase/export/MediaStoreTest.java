@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.createDirectories;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.createTempDirectory;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.deleteRecursive;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.readAllBytes;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.write;
+
+import java.nio.file.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MediaStoreTest {
+  private Path sourceDir;
+  private Path exportDir;
+  private Path mediaDir;
+
+  @Before
+  public void setUp() {
+    sourceDir = createTempDirectory("briefcase_test_media_store_source_");
+    exportDir = createTempDirectory("briefcase_test_media_store_export_");
+    mediaDir = createDirectories(exportDir.resolve("media"));
+  }
+
+  @After
+  public void tearDown() {
+    deleteRecursive(sourceDir);
+    deleteRecursive(exportDir);
+  }
+
+  @Test
+  public void reuses_numbered_files_with_the_same_contents() {
+    write(mediaDir.resolve("photo.jpg"), "some contents".getBytes());
+    Path source = write(sourceDir.resolve("photo.jpg"), "some other contents".getBytes());
+
+    assertThat(MediaStore.load(mediaDir).put(source, "photo.jpg"), is("photo-2.jpg"));
+    assertThat(MediaStore.load(mediaDir).put(source, "photo.jpg"), is("photo-2.jpg"));
+  }
+
+  @Test
+  public void exports_files_with_the_same_contents_and_different_names() {
+    Path source1 = write(sourceDir.resolve("photo1.jpg"), "some contents".getBytes());
+    Path source2 = write(sourceDir.resolve("photo2.jpg"), "some contents".getBytes());
+    MediaStore mediaStore = MediaStore.load(mediaDir);
+
+    assertThat(mediaStore.put(source1, "photo1.jpg"), is("photo1.jpg"));
+    assertThat(mediaStore.put(source2, "photo2.jpg"), is("photo2.jpg"));
+    assertThat(new String(readAllBytes(mediaDir.resolve("photo2.jpg"))), is("some contents"));
+  }
+
+  @Test
+  public void stores_sharing_an_index_export_different_files_with_different_names() {
+    Path source1 = write(sourceDir.resolve("photo1.jpg"), "some contents".getBytes());
+    Path source2 = write(sourceDir.resolve("photo2.jpg"), "some other contents".getBytes());
+    MediaStore mediaStore = MediaStore.load(mediaDir);
+    MediaStore otherMediaStore = mediaStore.withTransientFiles(__ -> false);
+
+    assertThat(mediaStore.put(source1, "photo.jpg"), is("photo.jpg"));
+    assertThat(otherMediaStore.put(source2, "photo.jpg"), is("photo-2.jpg"));
+    mediaStore.close();
+    otherMediaStore.close();
+
+    String index = new String(readAllBytes(exportDir.resolve(MediaStore.INDEX_FILE_NAME)));
+    assertThat(index, containsString("photo.jpg"));
+    assertThat(index, containsString("photo-2.jpg"));
+  }
+
+  @Test
+  public void saves_an_index_next_to_the_media_dir() {
+    Path source = write(sourceDir.resolve("photo.jpg"), "some contents".getBytes());
+    MediaStore mediaStore = MediaStore.load(mediaDir);
+    mediaStore.put(source, "photo.jpg");
+    mediaStore.close();
+
+    String index = new String(readAllBytes(exportDir.resolve(MediaStore.INDEX_FILE_NAME)));
+    assertThat(index, containsString("photo.jpg"));
+    assertThat(index, containsString(source.toAbsolutePath().toString()));
+  }
+
+  @Test
+  public void keeps_the_source_files_of_other_exports_in_the_index() {
+    Path source1 = write(sourceDir.resolve("photo1.jpg"), "some contents".getBytes());
+    Path source2 = write(sourceDir.resolve("photo2.jpg"), "some other contents".getBytes());
+    MediaStore mediaStore = MediaStore.load(mediaDir);
+    mediaStore.put(source1, "photo1.jpg");
+    mediaStore.close();
+    MediaStore otherMediaStore = MediaStore.load(mediaDir);
+    otherMediaStore.put(source2, "photo2.jpg");
+    otherMediaStore.close();
+
+    String index = new String(readAllBytes(exportDir.resolve(MediaStore.INDEX_FILE_NAME)));
+    assertThat(index, containsString(source1.toAbsolutePath().toString()));
+    assertThat(index, containsString(source2.toAbsolutePath().toString()));
+  }
+}
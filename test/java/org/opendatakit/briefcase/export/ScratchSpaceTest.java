@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.createTempDirectory;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.deleteRecursive;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.list;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.write;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ScratchSpaceTest {
+  private Path parentDir;
+  private ScratchSpace scratchSpace;
+
+  @Before
+  public void setUp() {
+    parentDir = createTempDirectory("briefcase_test_scratch_space_");
+    scratchSpace = ScratchSpace.in(Optional.of(parentDir));
+  }
+
+  @After
+  public void tearDown() {
+    scratchSpace.close();
+    deleteRecursive(parentDir);
+  }
+
+  @Test
+  public void writes_nothing_until_a_scratch_dir_is_acquired() {
+    assertThat(list(parentDir).count(), is(0L));
+  }
+
+  @Test
+  public void reuses_the_same_wiped_scratch_dir_in_the_same_thread() {
+    Path dir = scratchSpace.acquire();
+    write(dir.resolve("some-file.jpg"), new byte[100]);
+    scratchSpace.release();
+
+    assertThat(list(dir).count(), is(0L));
+    assertThat(scratchSpace.acquire(), is(dir));
+    assertThat(scratchSpace.getDirCount(), is(1));
+    assertThat(scratchSpace.getTotalBytes(), is(100L));
+  }
+
+  @Test
+  public void deletes_all_scratch_dirs_when_closed() {
+    Path dir = scratchSpace.acquire();
+    write(dir.resolve("some-file.jpg"), new byte[100]);
+
+    scratchSpace.close();
+
+    assertThat(Files.exists(dir), is(false));
+    assertThat(list(parentDir).count(), is(0L));
+  }
+}
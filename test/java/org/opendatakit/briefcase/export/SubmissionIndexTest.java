@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.createDirectories;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.createTempDirectory;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.deleteRecursive;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.readAllBytes;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.write;
+
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SubmissionIndexTest {
+  private static final Optional<OffsetDateTime> SOME_DATE = Optional.of(OffsetDateTime.parse("2018-01-01T10:20:30.000Z"));
+  private Path formDir;
+  private AtomicInteger reads;
+  private Function<Path, Optional<OffsetDateTime>> dateReader;
+
+  @Before
+  public void setUp() {
+    formDir = createTempDirectory("briefcase_test_submission_index_");
+    reads = new AtomicInteger(0);
+    dateReader = path -> {
+      reads.incrementAndGet();
+      return SOME_DATE;
+    };
+  }
+
+  @After
+  public void tearDown() {
+    deleteRecursive(formDir);
+  }
+
+  @Test
+  public void reads_each_submission_only_once_across_exports() {
+    Path submission = createSubmission("uuid1");
+
+    SubmissionIndex index = SubmissionIndex.load(formDir);
+    assertThat(index.getSubmissionDate(submission, dateReader), is(SOME_DATE));
+    index.save();
+
+    assertThat(SubmissionIndex.load(formDir).getSubmissionDate(submission, dateReader), is(SOME_DATE));
+    assertThat(reads.get(), is(1));
+  }
+
+  @Test
+  public void reads_again_submissions_that_have_changed() {
+    Path submission = createSubmission("uuid1");
+    SubmissionIndex index = SubmissionIndex.load(formDir);
+    index.getSubmissionDate(submission, dateReader);
+    index.save();
+
+    write(submission, "<data>some other contents</data>".getBytes());
+
+    SubmissionIndex.load(formDir).getSubmissionDate(submission, dateReader);
+    assertThat(reads.get(), is(2));
+  }
+
+  @Test
+  public void forgets_submissions_that_are_no_longer_present() {
+    Path submission1 = createSubmission("uuid1");
+    Path submission2 = createSubmission("uuid2");
+    SubmissionIndex index = SubmissionIndex.load(formDir);
+    index.getSubmissionDate(submission1, dateReader);
+    index.getSubmissionDate(submission2, dateReader);
+    index.save();
+
+    SubmissionIndex secondIndex = SubmissionIndex.load(formDir);
+    secondIndex.getSubmissionDate(submission1, dateReader);
+    secondIndex.save();
+
+    assertThat(readIndex(), containsString("uuid1"));
+    assertThat(readIndex(), not(containsString("uuid2")));
+  }
+
+  @Test
+  public void an_unreadable_index_gets_rebuilt() {
+    Path submission = createSubmission("uuid1");
+    write(formDir.resolve(SubmissionIndex.FILE_NAME), "some garbage".getBytes());
+
+    assertThat(SubmissionIndex.load(formDir).getSubmissionDate(submission, dateReader), is(SOME_DATE));
+    assertThat(reads.get(), is(1));
+  }
+
+  private Path createSubmission(String instanceId) {
+    Path instanceDir = createDirectories(formDir.resolve("instances").resolve(instanceId));
+    return write(instanceDir.resolve("submission.xml"), "<data/>".getBytes());
+  }
+
+  private String readIndex() {
+    return new String(readAllBytes(formDir.resolve(SubmissionIndex.FILE_NAME)));
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.kxml2.kdom.Node.ELEMENT;
+import static org.kxml2.kdom.Node.TEXT;
+
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.kxml2.kdom.Document;
+import org.kxml2.kdom.Element;
+
+public class XmlElementTest {
+  private XmlElement root;
+
+  @Before
+  public void setUp() {
+    // <data><group><field>first</field></group><field>second</field><other>third</other></data>
+    Document document = new Document();
+    Element data = document.createElement(null, "data");
+    Element group = data.createElement(null, "group");
+    group.addChild(ELEMENT, buildField(group, "field", "first"));
+    data.addChild(ELEMENT, group);
+    data.addChild(ELEMENT, buildField(data, "field", "second"));
+    data.addChild(ELEMENT, buildField(data, "other", "third"));
+    document.addChild(ELEMENT, data);
+    root = XmlElement.of(document);
+  }
+
+  @Test
+  public void finds_the_first_descendant_with_a_name_in_document_order() {
+    assertThat(root.findElement("field").flatMap(XmlElement::maybeValue), is(Optional.of("first")));
+    assertThat(root.findElement("other").flatMap(XmlElement::maybeValue), is(Optional.of("third")));
+  }
+
+  @Test
+  public void finds_descendants_ignoring_the_case_of_their_names() {
+    assertThat(root.findElement("OTHER").flatMap(XmlElement::maybeValue), is(Optional.of("third")));
+  }
+
+  @Test
+  public void finds_descendants_of_nested_elements() {
+    Optional<XmlElement> group = root.findElement("group");
+    assertThat(group.flatMap(g -> g.findElement("field")).flatMap(XmlElement::maybeValue), is(Optional.of("first")));
+    assertThat(group.flatMap(g -> g.findElement("other")).isPresent(), is(false));
+  }
+
+  @Test
+  public void returns_the_same_element_on_repeated_lookups() {
+    assertThat(root.findElement("field"), is(root.findElement("field")));
+    assertThat(root.findElement("missing").isPresent(), is(false));
+  }
+
+  private static Element buildField(Element parent, String name, String value) {
+    Element field = parent.createElement(null, name);
+    field.addChild(TEXT, value);
+    return field;
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.reused;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.createTempDirectory;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.deleteRecursive;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.write;
+
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class Md5Test {
+  private Path tempDir;
+
+  @Before
+  public void setUp() {
+    tempDir = createTempDirectory("briefcase_test_md5_");
+  }
+
+  @After
+  public void tearDown() {
+    deleteRecursive(tempDir);
+  }
+
+  @Test
+  public void hashes_files_with_known_digests() {
+    assertThat(Md5.hash(write(tempDir.resolve("empty"), new byte[0])), is("d41d8cd98f00b204e9800998ecf8427e"));
+    assertThat(Md5.hash(write(tempDir.resolve("abc"), "abc".getBytes())), is("900150983cd24fb0d6963f7d28e17f72"));
+  }
+
+  @Test
+  public void hashes_files_bigger_than_its_buffer() {
+    byte[] contents = new byte[Md5.BUFFER_SIZE * 3 + 17];
+    new Random(1).nextBytes(contents);
+    assertThat(Md5.hash(write(tempDir.resolve("big"), contents)), is(Md5.hash(contents)));
+  }
+
+  @Test
+  public void pads_digests_with_zeroes() {
+    assertThat(Md5.toHex(new byte[]{0x00, 0x0f, (byte) 0xff}), is("000fff"));
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.util;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class ConcurrencyLimitTest {
+
+  @Test
+  public void grows_by_one_after_a_full_round_of_successful_downloads() throws InterruptedException {
+    ConcurrencyLimit limit = new ConcurrencyLimit(1, 4, 8);
+
+    succeed(limit, 3);
+    assertThat(limit.getLimit(), is(4));
+
+    succeed(limit, 1);
+    assertThat(limit.getLimit(), is(5));
+
+    succeed(limit, 5);
+    assertThat(limit.getLimit(), is(6));
+  }
+
+  @Test
+  public void does_not_grow_over_its_max() throws InterruptedException {
+    ConcurrencyLimit limit = new ConcurrencyLimit(1, 2, 3);
+
+    succeed(limit, 100);
+
+    assertThat(limit.getLimit(), is(3));
+  }
+
+  @Test
+  public void halves_once_when_the_running_downloads_fail() throws InterruptedException {
+    ConcurrencyLimit limit = new ConcurrencyLimit(1, 8, 8);
+    List<Long> starts = new ArrayList<>();
+    for (int i = 0; i < 8; i++)
+      starts.add(limit.acquire());
+
+    for (long start : starts)
+      limit.onFailure(start);
+
+    assertThat(limit.getLimit(), is(4));
+
+    limit.onFailure(limit.acquire());
+    assertThat(limit.getLimit(), is(2));
+  }
+
+  @Test
+  public void does_not_shrink_under_its_min() throws InterruptedException {
+    ConcurrencyLimit limit = new ConcurrencyLimit(2, 2, 8);
+
+    limit.onFailure(limit.acquire());
+    limit.onFailure(limit.acquire());
+
+    assertThat(limit.getLimit(), is(2));
+  }
+
+  private static void succeed(ConcurrencyLimit limit, int downloads) throws InterruptedException {
+    for (int i = 0; i < downloads; i++)
+      limit.onSuccess(limit.acquire());
+  }
+}
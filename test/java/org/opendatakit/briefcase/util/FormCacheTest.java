@@ -26,6 +26,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.Optional;
 import org.junit.After;
 import org.junit.Before;
@@ -109,6 +110,52 @@ public class FormCacheTest {
     assertThat(cache.getForms(), is(empty()));
   }
 
+  @Test
+  public void does_not_parse_forms_that_have_not_changed() throws IOException {
+    installForm("simple-form");
+    FormCache cache = FormCache.empty();
+    cache.setLocation(briefcaseDir);
+    cache.update();
+
+    // Break the form file keeping its size and last modification time
+    Path formFile = formsDir.resolve("simple-form").resolve("simple-form.xml");
+    FileTime lastModified = Files.getLastModifiedTime(formFile);
+    Files.write(formFile, new byte[(int) Files.size(formFile)]);
+    Files.setLastModifiedTime(formFile, lastModified);
+
+    FormCache.from(briefcaseDir).update();
+
+    assertThat(FormCache.from(briefcaseDir).getForms().size(), is(1));
+  }
+
+  @Test
+  public void rebuilds_an_unreadable_cache_file() throws IOException {
+    installForm("simple-form");
+    installForm("nested-repeats");
+    Files.write(briefcaseDir.resolve(FormCache.CACHE_FILE_NAME), "some garbage".getBytes());
+
+    assertThat(FormCache.from(briefcaseDir).getForms().size(), is(2));
+  }
+
+  @Test
+  public void gets_a_form_by_id_without_updating_the_whole_cache() throws IOException {
+    installForm("simple-form");
+    FormCache cache = FormCache.from(briefcaseDir);
+    installForm("nested-repeats");
+
+    assertThat(cache.getForm("simple-form").get().getFormId(), is("simple-form"));
+    assertThat(cache.getForms().size(), is(1));
+  }
+
+  @Test
+  public void updates_itself_when_getting_a_form_that_is_not_cached_yet() throws IOException {
+    FormCache cache = FormCache.from(briefcaseDir);
+    installForm("simple-form");
+
+    assertThat(cache.getForm("simple-form").get().getFormId(), is("simple-form"));
+    assertThat(cache.getForm("nested-repeats").isPresent(), is(false));
+  }
+
   private void installForm(final String formName) throws IOException {
     Path formDir = formsDir.resolve(formName);
     Files.createDirectories(formDir);
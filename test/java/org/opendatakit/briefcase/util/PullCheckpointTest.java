@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.deleteRecursive;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.write;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PullCheckpointTest {
+  private static final String SERVER = "https://some.server/aggregate";
+  private Path formDir;
+
+  @Before
+  public void setUp() throws IOException {
+    formDir = Files.createTempDirectory("briefcase_test");
+  }
+
+  @After
+  public void tearDown() {
+    deleteRecursive(formDir);
+  }
+
+  @Test
+  public void starts_from_the_beginning_when_there_is_no_checkpoint() {
+    PullCheckpoint checkpoint = PullCheckpoint.load(formDir, SERVER);
+
+    assertThat(checkpoint.getCursor(), is(""));
+    assertThat(checkpoint.isExhausted(), is(false));
+    assertThat(checkpoint.getPendingUris(), is(empty()));
+  }
+
+  @Test
+  public void loads_the_last_saved_checkpoint() {
+    PullCheckpoint.load(formDir, SERVER).save("some cursor", Arrays.asList("uuid:1", "uuid:2"), false);
+
+    PullCheckpoint checkpoint = PullCheckpoint.load(formDir, SERVER);
+
+    assertThat(checkpoint.getCursor(), is("some cursor"));
+    assertThat(checkpoint.isExhausted(), is(false));
+    assertThat(checkpoint.getPendingUris(), contains("uuid:1", "uuid:2"));
+  }
+
+  @Test
+  public void is_exhausted_even_if_some_submissions_are_still_pending() {
+    PullCheckpoint.load(formDir, SERVER).save("last cursor", Collections.singletonList("uuid:1"), true);
+
+    PullCheckpoint checkpoint = PullCheckpoint.load(formDir, SERVER);
+
+    assertThat(checkpoint.isExhausted(), is(true));
+    assertThat(checkpoint.getPendingUris(), contains("uuid:1"));
+  }
+
+  @Test
+  public void keeps_a_checkpoint_per_server() {
+    PullCheckpoint.load(formDir, SERVER).save("some cursor", Collections.emptyList(), true);
+
+    PullCheckpoint checkpoint = PullCheckpoint.load(formDir, "https://other.server/aggregate");
+
+    assertThat(checkpoint.getCursor(), is(""));
+    assertThat(checkpoint.isExhausted(), is(false));
+  }
+
+  @Test
+  public void starts_from_the_beginning_when_the_checkpoint_is_unreadable() throws IOException {
+    PullCheckpoint.load(formDir, SERVER).save("some cursor", Collections.emptyList(), true);
+    try (Stream<Path> files = Files.list(formDir)) {
+      files.forEach(file -> write(file, "garbage".getBytes(UTF_8)));
+    }
+
+    PullCheckpoint checkpoint = PullCheckpoint.load(formDir, SERVER);
+
+    assertThat(checkpoint.getCursor(), is(""));
+    assertThat(checkpoint.isExhausted(), is(false));
+  }
+}
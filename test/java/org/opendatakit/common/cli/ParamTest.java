@@ -26,4 +26,16 @@ public class ParamTest {
     Param<LocalDate> localDate = Param.localDate("start", "export_start_date", "Export start date");
     assertThat(localDate.map("2018/01/20"), is(LocalDate.of(2018, 1, 20)));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void acceptsPositiveNumbers() {
+    Param<Integer> positiveInt = Param.positiveInt("pps", "pull_page_size", "Page size");
+    assertThat(positiveInt.map("100"), is(100));
+  }
+
+  @Test(expected = BriefcaseException.class)
+  public void throwBriefcaseExceptionForNumbersLowerThanOne() {
+    Param<Integer> positiveInt = Param.positiveInt("pps", "pull_page_size", "Page size");
+    positiveInt.map("0");
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static java.util.stream.Collectors.groupingByConcurrent;
+import static java.util.stream.Collectors.reducing;
+import static java.util.stream.Collectors.toList;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares grouping the output of submission mappers with the {@link CsvLinesSink}
+ * against the reduction that merged {@link CsvLines} instances by copying them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CsvLinesSinkBenchmark {
+  private static final String MAIN_FQN = "main";
+  private static final String REPEAT_FQN = "main-repeat";
+
+  @Param({"10000", "100000", "1000000"})
+  public int rows;
+
+  private List<CsvLines> mapperOutputs;
+
+  @Setup
+  public void setUp() {
+    OffsetDateTime submissionDate = OffsetDateTime.parse("2018-01-01T00:00:00.000Z");
+    // Each submission produces a main line and a repeat line
+    mapperOutputs = IntStream.range(0, rows / 2).boxed()
+        .flatMap(n -> IntStream.range(0, 2).mapToObj(i -> CsvLines.of(
+            i == 0 ? MAIN_FQN : REPEAT_FQN,
+            submissionDate.plusSeconds(n),
+            "some,csv,line," + n
+        )))
+        .collect(toList());
+  }
+
+  @Benchmark
+  public List<CsvLines> sink() {
+    CsvLinesSink sink = new CsvLinesSink();
+    mapperOutputs.parallelStream().forEach(sink::accept);
+    List<CsvLines> output = new ArrayList<>();
+    output.add(sink.drain(MAIN_FQN));
+    output.add(sink.drain(REPEAT_FQN));
+    return output;
+  }
+
+  @Benchmark
+  public Map<String, CsvLines> merge() {
+    return mapperOutputs.parallelStream().collect(groupingByConcurrent(
+        CsvLines::getModelFqn,
+        reducing(new CsvLines(null, new ArrayList<>()), CsvLinesSinkBenchmark::merge)
+    ));
+  }
+
+  /**
+   * Copy of the merge strategy that was used before the {@link CsvLinesSink}
+   */
+  private static CsvLines merge(CsvLines left, CsvLines right) {
+    List<CsvLine> lines = new ArrayList<>();
+    lines.addAll(left.getLines());
+    lines.addAll(right.getLines());
+    return new CsvLines(left.getModelFqn() != null ? left.getModelFqn() : right.getModelFqn(), lines);
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares building CSV lines with {@link CsvRow} against encoding each value
+ * into a new {@link String} and joining them, which is what the submission
+ * mappers used to do.
+ * <p>
+ * Run it with {@code -prof gc} to compare the bytes allocated per line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CsvRowBenchmark {
+  private static final int COLUMNS = 50;
+  private List<String> values;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(1);
+    List<String> samples = new ArrayList<>();
+    samples.add("");
+    samples.add(null);
+    samples.add("some value");
+    samples.add("2018-01-01T10:20:30.000Z");
+    samples.add("some value, with a comma");
+    samples.add("some \"quoted\" value");
+    samples.add("some value\nwith a line break");
+    values = IntStream.range(0, COLUMNS)
+        .mapToObj(i -> samples.get(random.nextInt(samples.size())))
+        .collect(toList());
+  }
+
+  @Benchmark
+  public String csvRow() {
+    CsvRow row = CsvRow.start();
+    for (String value : values)
+      row.append(value, true);
+    return row.build();
+  }
+
+  @Benchmark
+  public String encodeAndJoin() {
+    List<String> cols = new ArrayList<>();
+    for (String value : values)
+      cols.add(encode(value, true));
+    return String.join(",", cols);
+  }
+
+  private static String encode(String string, boolean allowNulls) {
+    if (string == null || string.isEmpty())
+      return allowNulls ? "" : "\"\"";
+    if (string.contains("\n") || string.contains("\"") || string.contains(","))
+      return String.format("\"%s\"", string.replaceAll("\"", "\"\""));
+    return string;
+  }
+}
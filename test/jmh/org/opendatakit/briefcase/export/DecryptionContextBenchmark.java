@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static org.apache.commons.codec.binary.Base64.decodeBase64;
+
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.Security;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opendatakit.briefcase.reused.UncheckedFiles;
+
+/**
+ * Compares the per-submission cost of preparing the decryption of the submission
+ * in the encrypted-form fixture using a {@link DecryptionContext} shared by the
+ * whole export, against reading the PEM file for each submission, which is what
+ * the export used to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DecryptionContextBenchmark {
+  private Path pemFile;
+  private String instanceId;
+  private String base64EncryptedKey;
+  private byte[] encryptedSignature;
+  private DecryptionContext sharedContext;
+
+  @Setup
+  public void setUp() throws URISyntaxException {
+    Security.addProvider(new BouncyCastleProvider());
+    pemFile = getPath("encrypted-form-key.pem");
+    String submission = new String(UncheckedFiles.readAllBytes(getPath("encrypted-form-submission.xml")));
+    instanceId = extract(submission, "n0:instanceID");
+    base64EncryptedKey = extract(submission, "base64EncryptedKey");
+    encryptedSignature = decodeBase64(extract(submission, "base64EncryptedElementSignature"));
+    sharedContext = new DecryptionContext(ExportConfiguration.readPemFile(pemFile).get());
+  }
+
+  @Benchmark
+  public void sharedContext(Blackhole blackhole) {
+    prepareDecryption(sharedContext, blackhole);
+  }
+
+  @Benchmark
+  public void pemFilePerSubmission(Blackhole blackhole) {
+    prepareDecryption(new DecryptionContext(ExportConfiguration.readPemFile(pemFile).get()), blackhole);
+  }
+
+  private void prepareDecryption(DecryptionContext context, Blackhole blackhole) {
+    CipherFactory cipherFactory = CipherFactory.from(instanceId, base64EncryptedKey, context);
+    blackhole.consume(context.decrypt(encryptedSignature));
+    blackhole.consume(cipherFactory.next());
+    blackhole.consume(cipherFactory.next());
+  }
+
+  private static Path getPath(String fileName) throws URISyntaxException {
+    return Paths.get(DecryptionContextBenchmark.class.getResource("/org/opendatakit/briefcase/export/" + fileName).toURI());
+  }
+
+  private static String extract(String xml, String tag) {
+    int start = xml.indexOf("<" + tag + ">") + tag.length() + 2;
+    return xml.substring(start, xml.indexOf("</" + tag + ">", start));
+  }
+}
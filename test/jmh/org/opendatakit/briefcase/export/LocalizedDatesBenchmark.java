@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import static java.text.DateFormat.getDateInstance;
+import static java.text.DateFormat.getDateTimeInstance;
+import static java.util.stream.Collectors.toList;
+import static org.opendatakit.common.utils.WebUtils.parseDate;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares formatting the date and dateTime fields of 10000 submissions with
+ * {@link LocalizedDates} against getting a new {@link java.text.DateFormat}
+ * for each value, which is what the CSV field mappers used to do.
+ * <p>
+ * Dates are spread over a month, like in a regular data collection campaign,
+ * and dateTimes are all different.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LocalizedDatesBenchmark {
+  private static final int SUBMISSIONS = 10000;
+  private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+  private List<String> dates;
+  private List<String> dateTimes;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(1);
+    OffsetDateTime start = OffsetDateTime.parse("2018-01-01T08:00:00.000Z");
+    List<OffsetDateTime> values = IntStream.range(0, SUBMISSIONS)
+        .mapToObj(i -> start.plusSeconds(random.nextInt(30 * 24 * 3600)))
+        .collect(toList());
+    dates = values.stream().map(value -> value.toLocalDate().toString()).collect(toList());
+    dateTimes = values.stream().map(DATE_TIME_FORMAT::format).collect(toList());
+  }
+
+  @Benchmark
+  public void dateFormatPerValue(Blackhole blackhole) {
+    for (int i = 0; i < SUBMISSIONS; i++) {
+      blackhole.consume(getDateInstance().format(parseDate(dates.get(i))));
+      blackhole.consume(getDateTimeInstance().format(parseDate(dateTimes.get(i))));
+    }
+  }
+
+  @Benchmark
+  public void localizedDates(Blackhole blackhole) {
+    for (int i = 0; i < SUBMISSIONS; i++) {
+      blackhole.consume(LocalizedDates.current().formatDate(dates.get(i)));
+      blackhole.consume(LocalizedDates.current().formatDateTime(dateTimes.get(i)));
+    }
+  }
+}
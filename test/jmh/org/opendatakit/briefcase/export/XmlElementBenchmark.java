@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.export;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.kxml2.kdom.Document;
+import org.kxml2.kdom.Element;
+import org.kxml2.kdom.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares looking up every field of a wide synthetic submission using the indexed
+ * {@link XmlElement#findElement(String)} against traversing the whole document for
+ * each field, which is what it used to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class XmlElementBenchmark {
+  @Param({"50", "500", "2000"})
+  public int fields;
+
+  private Document document;
+  private List<String> names;
+
+  @Setup
+  public void setUp() {
+    document = new Document();
+    Element root = document.createElement(null, "data");
+    names = new ArrayList<>();
+    for (int i = 0; i < fields; i++) {
+      String name = "field" + i;
+      Element field = root.createElement(null, name);
+      field.addChild(Node.TEXT, "value " + i);
+      root.addChild(Node.ELEMENT, field);
+      names.add(name);
+    }
+    Element meta = root.createElement(null, "meta");
+    Element instanceId = meta.createElement(null, "instanceID");
+    instanceId.addChild(Node.TEXT, "uuid:00000000-0000-0000-0000-000000000000");
+    meta.addChild(Node.ELEMENT, instanceId);
+    root.addChild(Node.ELEMENT, meta);
+    names.add("instanceID");
+    document.addChild(Node.ELEMENT, root);
+  }
+
+  @Benchmark
+  public void indexed(Blackhole blackhole) {
+    // A new root is used on each run to account for the cost of building the index
+    XmlElement root = XmlElement.of(document);
+    for (String name : names)
+      blackhole.consume(root.findElement(name));
+  }
+
+  @Benchmark
+  public void fullTraversal(Blackhole blackhole) {
+    Element root = document.getRootElement();
+    for (String name : names)
+      blackhole.consume(traverse(root, name));
+  }
+
+  private static Optional<Element> traverse(Element parent, String name) {
+    for (int i = 0, max = parent.getChildCount(); i < max; i++) {
+      if (parent.getType(i) != Node.ELEMENT)
+        continue;
+      Element child = parent.getElement(i);
+      if (child.getName().equalsIgnoreCase(name))
+        return Optional.of(child);
+      Optional<Element> descendant = traverse(child, name);
+      if (descendant.isPresent())
+        return descendant;
+    }
+    return Optional.empty();
+  }
+}
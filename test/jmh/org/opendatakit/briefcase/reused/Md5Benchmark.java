@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2018 Nafundi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.opendatakit.briefcase.reused;
+
+import static org.opendatakit.briefcase.reused.UncheckedFiles.createTempDirectory;
+import static org.opendatakit.briefcase.reused.UncheckedFiles.deleteRecursive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares hashing files with {@link Md5} against the 256-byte chunked reads
+ * that Briefcase used to do, for the size of a small submission file and the
+ * size of a video attachment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class Md5Benchmark {
+  @Param({"4096", "268435456"})
+  public int fileSize;
+
+  private Path tempDir;
+  private Path file;
+
+  @Setup
+  public void setUp() throws IOException {
+    tempDir = createTempDirectory("briefcase_md5_benchmark_");
+    file = tempDir.resolve("file");
+    Random random = new Random(1);
+    byte[] chunk = new byte[1024 * 1024];
+    try (OutputStream out = Files.newOutputStream(file)) {
+      for (int written = 0; written < fileSize; written += chunk.length) {
+        random.nextBytes(chunk);
+        out.write(chunk, 0, Math.min(chunk.length, fileSize - written));
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    deleteRecursive(tempDir);
+  }
+
+  @Benchmark
+  public String md5() {
+    return Md5.hash(file);
+  }
+
+  @Benchmark
+  public String chunkedReads() throws Exception {
+    MessageDigest md = MessageDigest.getInstance("MD5");
+    byte[] chunk = new byte[256];
+    try (InputStream is = Files.newInputStream(file)) {
+      int length = (int) Files.size(file);
+      int l;
+      for (l = 0; l + chunk.length < length; l += chunk.length) {
+        is.read(chunk, 0, chunk.length);
+        md.update(chunk, 0, chunk.length);
+      }
+      is.read(chunk, 0, length - l);
+      md.update(chunk, 0, length - l);
+    }
+    String md5 = new BigInteger(1, md.digest()).toString(16);
+    while (md5.length() < 32)
+      md5 = "0" + md5;
+    return md5;
+  }
+}